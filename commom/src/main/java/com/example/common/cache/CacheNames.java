@@ -0,0 +1,36 @@
+package com.example.common.cache;
+
+/**
+ * 二级缓存名称和失效消息频道
+ * provider和consumer共用，consumer按这些名称订阅provider的失效消息，修改名称时两边同时生效
+ */
+public final class CacheNames {
+
+    /**
+     * 游戏详情，键为游戏ID
+     */
+    public static final String GAME_DETAIL = "game_detail";
+
+    /**
+     * 游戏的标签ID列表，键为游戏ID
+     */
+    public static final String GAME_TAG_IDS = "game_tag_ids";
+
+    /**
+     * 类型列表
+     */
+    public static final String TYPE = "type";
+
+    /**
+     * consumer-app的游戏详情(游戏、类型、标签)，键为游戏ID
+     */
+    public static final String APP_GAME_DETAIL = "app_game_detail";
+
+    /**
+     * 标签字典失效消息频道，消息内容为逗号分隔的标签ID
+     */
+    public static final String TAG_DICTIONARY_CHANNEL = "tag_dictionary_invalidate";
+
+    private CacheNames() {
+    }
+}
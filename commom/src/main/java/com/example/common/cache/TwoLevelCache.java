@@ -0,0 +1,352 @@
+package com.example.common.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 二级缓存
+ * 一级为进程内Caffeine缓存(W-TinyLFU淘汰)，二级为Redis；
+ * 失效时删除Redis中的数据，并通过Redis发布订阅通知所有实例清除一级缓存
+ * 同名缓存在不同服务中共用同一份二级缓存和失效消息；
+ * 数据由其他缓存组合而来时，可以通过evictOn/clearOn跟随其他缓存的失效消息一起失效
+ */
+@Slf4j
+public class TwoLevelCache implements MessageListener {
+
+    /**
+     * 失效消息频道，消息内容为 缓存名称 + 换行 + 键
+     */
+    public static final String CHANNEL = "two_level_cache_invalidate";
+
+    private static final String SEPARATOR = "\n";
+
+    /**
+     * 清除二级缓存时每批SCAN的键数
+     */
+    private static final int SCAN_COUNT = 500;
+
+    private final String name;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final Duration redisTtl;
+    private final Cache<String, Object> local;
+    private final RedisMessageListenerContainer container;
+
+    /**
+     * 跟随失效的缓存名称：按键失效、整体清空
+     */
+    private final Set<String> evictOnNames = new CopyOnWriteArraySet<>();
+    private final Set<String> clearOnNames = new CopyOnWriteArraySet<>();
+
+    /**
+     * 整体清空的消息频道
+     */
+    private final Set<String> clearOnChannels = new CopyOnWriteArraySet<>();
+
+    /**
+     * 失效次数，加载期间发生过失效时不写入加载结果，避免旧数据在失效之后写回
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * @param name          缓存名称，同时作为Redis键前缀
+     * @param redisTemplate 二级缓存使用的RedisTemplate
+     * @param container     用于订阅失效消息
+     * @param maxSize       一级缓存最大条数
+     * @param localTtl      一级缓存过期时间，兜底丢失失效消息的情况
+     * @param redisTtl      二级缓存过期时间
+     */
+    public TwoLevelCache(String name, RedisTemplate<String, Object> redisTemplate, RedisMessageListenerContainer container,
+                         long maxSize, Duration localTtl, Duration redisTtl) {
+        this.name = name;
+        this.redisTemplate = redisTemplate;
+        this.redisTtl = redisTtl;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(localTtl)
+                .build();
+        this.container = container;
+        container.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * 缓存名称为name的缓存失效某个键时，本缓存同一个键一起失效
+     */
+    public TwoLevelCache evictOn(String name) {
+        evictOnNames.add(name);
+        return this;
+    }
+
+    /**
+     * 缓存名称为name的缓存失效任何键时，本缓存整体清空
+     */
+    public TwoLevelCache clearOn(String name) {
+        clearOnNames.add(name);
+        return this;
+    }
+
+    /**
+     * 频道channel上收到任何消息时，本缓存整体清空
+     */
+    public TwoLevelCache clearOnChannel(String channel) {
+        clearOnChannels.add(channel);
+        container.addMessageListener(this, new ChannelTopic(channel));
+        return this;
+    }
+
+    /**
+     * 读取缓存，一级未命中时读二级并回填一级
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getIfPresent(String key) {
+        Object value = local.getIfPresent(key);
+        if (value != null) {
+            return (T) value;
+        }
+        try {
+            value = redisTemplate.opsForValue().get(redisKey(key));
+        } catch (Exception e) {
+            log.warn("读取二级缓存失败，缓存: {}, 键: {}, 原因: {}", name, key, e.getMessage());
+            return null;
+        }
+        if (value != null) {
+            local.put(key, value);
+        }
+        return (T) value;
+    }
+
+    /**
+     * 读取缓存，两级都未命中时调用loader加载并写入两级缓存
+     * loader返回null时不缓存；加载期间本实例收到过失效时只返回结果不写入
+     */
+    public <T> T get(String key, Supplier<T> loader) {
+        T value = getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+        long version = invalidations.get();
+        value = loader.get();
+        if (value != null && version == invalidations.get()) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * 批量读取缓存，一级未命中的键通过一次MGET读取二级并回填一级
+     *
+     * @return 命中的键 -> 值，未命中的键不在结果中
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Map<String, T> getAllPresent(Collection<String> keys) {
+        Map<String, T> result = new HashMap<>();
+        List<String> missKeys = new ArrayList<>();
+        for (String key : keys) {
+            Object value = local.getIfPresent(key);
+            if (value != null) {
+                result.put(key, (T) value);
+            } else if (!result.containsKey(key)) {
+                missKeys.add(key);
+            }
+        }
+        if (missKeys.isEmpty()) {
+            return result;
+        }
+        List<String> redisKeys = new ArrayList<>(missKeys.size());
+        for (String key : missKeys) {
+            redisKeys.add(redisKey(key));
+        }
+        List<Object> values;
+        try {
+            values = redisTemplate.opsForValue().multiGet(redisKeys);
+        } catch (Exception e) {
+            log.warn("批量读取二级缓存失败，缓存: {}, 键数: {}, 原因: {}", name, missKeys.size(), e.getMessage());
+            return result;
+        }
+        if (values == null) {
+            return result;
+        }
+        for (int i = 0; i < missKeys.size() && i < values.size(); i++) {
+            Object value = values.get(i);
+            if (value != null) {
+                local.put(missKeys.get(i), value);
+                result.put(missKeys.get(i), (T) value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 批量写入两级缓存，二级缓存通过管道一次发送
+     */
+    @SuppressWarnings("unchecked")
+    public void putAll(Map<String, ?> values) {
+        if (values.isEmpty()) {
+            return;
+        }
+        local.putAll(values);
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        Expiration expiration = Expiration.milliseconds(redisTtl.toMillis());
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Map.Entry<String, ?> entry : values.entrySet()) {
+                    connection.stringCommands().set(keySerializer.serialize(redisKey(entry.getKey())),
+                            valueSerializer.serialize(entry.getValue()), expiration, RedisStringCommands.SetOption.upsert());
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("批量写入二级缓存失败，缓存: {}, 键数: {}, 原因: {}", name, values.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 写入两级缓存
+     */
+    public void put(String key, Object value) {
+        local.put(key, value);
+        try {
+            redisTemplate.opsForValue().set(redisKey(key), value, redisTtl);
+        } catch (Exception e) {
+            log.warn("写入二级缓存失败，缓存: {}, 键: {}, 原因: {}", name, key, e.getMessage());
+        }
+    }
+
+    /**
+     * 删除两级缓存并通知其他实例
+     */
+    public void evict(String key) {
+        evictQuietly(key);
+        publish(key);
+    }
+
+    /**
+     * 只清除本实例一级缓存
+     */
+    public void evictLocal(String key) {
+        invalidations.incrementAndGet();
+        local.invalidate(key);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        if (clearOnChannels.contains(channel)) {
+            clearQuietly();
+            return;
+        }
+        Invalidation invalidation = decode(message);
+        if (invalidation == null) {
+            return;
+        }
+        if (name.equals(invalidation.name())) {
+            evictLocal(invalidation.key());
+        } else if (evictOnNames.contains(invalidation.name())) {
+            // 每个实例都会收到来源缓存的消息，这里只删除不再发布
+            evictQuietly(invalidation.key());
+        } else if (clearOnNames.contains(invalidation.name())) {
+            clearQuietly();
+        }
+    }
+
+    /**
+     * 编码失效消息
+     */
+    public static String encode(String name, String key) {
+        return name + SEPARATOR + key;
+    }
+
+    /**
+     * 解码失效频道上的消息，格式不正确时返回null
+     */
+    public static Invalidation decode(Message message) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int index = body.indexOf(SEPARATOR);
+        if (index < 0) {
+            return null;
+        }
+        return new Invalidation(body.substring(0, index), body.substring(index + 1));
+    }
+
+    /**
+     * 失效消息，name为缓存名称
+     */
+    public record Invalidation(String name, String key) {
+    }
+
+    /**
+     * 删除两级缓存，不发布失效消息
+     */
+    private void evictQuietly(String key) {
+        invalidations.incrementAndGet();
+        local.invalidate(key);
+        try {
+            redisTemplate.delete(redisKey(key));
+        } catch (Exception e) {
+            log.warn("删除二级缓存失败，缓存: {}, 键: {}, 原因: {}", name, key, e.getMessage());
+        }
+    }
+
+    /**
+     * 清空两级缓存，不发布失效消息；二级缓存按前缀SCAN后分批删除，只用于低频的整体失效
+     */
+    private void clearQuietly() {
+        invalidations.incrementAndGet();
+        local.invalidateAll();
+        ScanOptions options = ScanOptions.scanOptions().match(redisKey("*")).count(SCAN_COUNT).build();
+        try {
+            redisTemplate.execute((RedisCallback<Object>) connection -> {
+                List<byte[]> batch = new ArrayList<>();
+                try (Cursor<byte[]> cursor = connection.keyCommands().scan(options)) {
+                    while (cursor.hasNext()) {
+                        batch.add(cursor.next());
+                        if (batch.size() >= SCAN_COUNT) {
+                            connection.keyCommands().del(batch.toArray(new byte[0][]));
+                            batch.clear();
+                        }
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    connection.keyCommands().del(batch.toArray(new byte[0][]));
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("清空二级缓存失败，缓存: {}, 原因: {}", name, e.getMessage());
+        }
+    }
+
+    private void publish(String key) {
+        try {
+            // 直接发送原始字节，不经过值序列化器
+            byte[] channel = CHANNEL.getBytes(StandardCharsets.UTF_8);
+            byte[] body = encode(name, key).getBytes(StandardCharsets.UTF_8);
+            redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channel, body));
+        } catch (Exception e) {
+            log.warn("发布缓存失效消息失败，缓存: {}, 键: {}, 原因: {}", name, key, e.getMessage());
+        }
+    }
+
+    private String redisKey(String key) {
+        return "cache:" + name + ":" + key;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.common.config.feign;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Feign调用统计
+ * 每个Feign客户端的path不同(/game、/user、/sms、/auth)，按请求路径第一段区分客户端，
+ * 统计调用次数、失败次数、耗时、新建连接数和连接复用次数
+ */
+@Slf4j
+public class FeignClientMetrics implements EventListener.Factory {
+
+    private final Map<String, Stats> statsMap = new ConcurrentHashMap<>();
+
+    @NotNull
+    @Override
+    public EventListener create(@NotNull Call call) {
+        List<String> segments = call.request().url().pathSegments();
+        String client = segments.isEmpty() ? "/" : "/" + segments.get(0);
+        return new Listener(statsMap.computeIfAbsent(client, k -> new Stats()));
+    }
+
+    /**
+     * 输出并清零各客户端的统计
+     */
+    public void report(int poolConnections, int poolIdleConnections) {
+        log.info("Feign连接池 连接数: {}, 空闲: {}", poolConnections, poolIdleConnections);
+        statsMap.forEach((client, stats) -> {
+            long calls = stats.calls.getAndSet(0);
+            long failures = stats.failures.getAndSet(0);
+            long totalMillis = stats.totalMillis.getAndSet(0);
+            long connects = stats.connects.getAndSet(0);
+            long reused = stats.reused.getAndSet(0);
+            if (calls == 0) {
+                return;
+            }
+            log.info("Feign客户端 {} 调用: {}, 失败: {}, 平均耗时: {}ms, 新建连接: {}, 复用连接: {}",
+                    client, calls, failures, totalMillis / calls, connects, reused);
+        });
+    }
+
+    private static class Stats {
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong totalMillis = new AtomicLong();
+        private final AtomicLong connects = new AtomicLong();
+        private final AtomicLong reused = new AtomicLong();
+    }
+
+    private static class Listener extends EventListener {
+
+        private final Stats stats;
+        private long startTime;
+        private boolean connected;
+
+        private Listener(Stats stats) {
+            this.stats = stats;
+        }
+
+        @Override
+        public void callStart(@NotNull Call call) {
+            startTime = System.currentTimeMillis();
+        }
+
+        @Override
+        public void connectStart(@NotNull Call call, @NotNull InetSocketAddress inetSocketAddress, @NotNull Proxy proxy) {
+            connected = true;
+            stats.connects.incrementAndGet();
+        }
+
+        @Override
+        public void connectionAcquired(@NotNull Call call, @NotNull Connection connection) {
+            if (!connected) {
+                stats.reused.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void callEnd(@NotNull Call call) {
+            record();
+        }
+
+        @Override
+        public void callFailed(@NotNull Call call, @NotNull IOException ioe) {
+            stats.failures.incrementAndGet();
+            record();
+        }
+
+        private void record() {
+            stats.calls.incrementAndGet();
+            stats.totalMillis.addAndGet(System.currentTimeMillis() - startTime);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.common.config.feign;
+
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import feign.RequestInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.openfeign.support.HttpMessageConverterCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Feign编解码配置
+ * 调用provider时优先使用Smile二进制格式，provider不支持时按JSON返回，解码器按响应的Content-Type选择转换器
+ * Smile转换器只加入Feign使用的转换器列表，不影响本服务对外返回的JSON
+ */
+@Configuration
+public class FeignCodecConfig {
+
+    public static final String SMILE_ACCEPT = "application/x-jackson-smile, application/json;q=0.9";
+
+    /**
+     * 是否请求Smile格式，关闭后全部使用JSON
+     */
+    @Value("${feign.codec.smile-enabled:true}")
+    private boolean smileEnabled;
+
+    /**
+     * 请求体是否使用Smile格式，需要所有provider实例都支持Smile后再开启
+     */
+    @Value("${feign.codec.smile-request-enabled:false}")
+    private boolean smileRequestEnabled;
+
+    @Bean
+    public HttpMessageConverterCustomizer smileMessageConverterCustomizer(Jackson2ObjectMapperBuilder builder) {
+        MappingJackson2SmileHttpMessageConverter converter =
+                new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+        // 请求体由第一个可写入的转换器编码，Smile放在最前面时请求体使用Smile，否则使用JSON
+        if (smileEnabled && smileRequestEnabled) {
+            return converters -> converters.add(0, converter);
+        }
+        return converters -> converters.add(converter);
+    }
+
+    @Bean
+    public RequestInterceptor smileAcceptInterceptor() {
+        return template -> {
+            if (smileEnabled && !template.headers().containsKey(HttpHeaders.ACCEPT)) {
+                template.header(HttpHeaders.ACCEPT, SMILE_ACCEPT);
+            }
+        };
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.common.config.feign;
+
+import jakarta.annotation.Resource;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Feign传输层配置
+ * 使用OkHttp连接池替换默认的HttpURLConnection客户端，连接池大小、存活时间、协议等由
+ * spring.cloud.openfeign.httpclient.* 配置；OkHttp自动请求并解压gzip响应
+ */
+@Configuration
+public class FeignTransportConfig {
+
+    /**
+     * OpenFeign创建的连接池
+     */
+    @Lazy
+    @Resource
+    private ConnectionPool connectionPool;
+
+    @Bean
+    public FeignClientMetrics feignClientMetrics() {
+        return new FeignClientMetrics();
+    }
+
+    /**
+     * OpenFeign在此基础上设置连接池、超时和协议
+     */
+    @Bean
+    public OkHttpClient.Builder okHttpClientBuilder(FeignClientMetrics feignClientMetrics) {
+        return new OkHttpClient.Builder()
+                .eventListenerFactory(feignClientMetrics)
+                .retryOnConnectionFailure(true);
+    }
+
+    /**
+     * 定时输出连接池和各客户端的调用统计
+     */
+    @Scheduled(fixedDelayString = "${feign.metrics.report-interval:60000}")
+    public void reportMetrics() {
+        feignClientMetrics().report(connectionPool.connectionCount(), connectionPool.idleConnectionCount());
+    }
+}
@@ -41,18 +41,19 @@ public class DataSourceAspect {
         
         // 获取@DataSource注解
         DataSource dataSource = method.getAnnotation(DataSource.class);
-        if (dataSource != null) {
-            DataSourceType dataSourceType = dataSource.value();
-            logger.debug("切换到数据源: {}", dataSourceType);
-            DataSourceContextHolder.setDataSourceType(dataSourceType);
+        if (dataSource == null) {
+            return point.proceed();
         }
+        DataSourceType dataSourceType = dataSource.value();
+        logger.debug("切换到数据源: {}", dataSourceType);
+        DataSourceContextHolder.push(dataSourceType);
         
         try {
             return point.proceed();
         } finally {
-            // 清除数据源设置
-            DataSourceContextHolder.clearDataSourceType();
-            logger.debug("清除数据源设置");
+            // 恢复外层数据源设置
+            DataSourceContextHolder.pop();
+            logger.debug("恢复数据源设置: {}", DataSourceContextHolder.getDataSourceType());
         }
     }
 }
\ No newline at end of file
@@ -1,33 +1,50 @@
 package com.example.common.config.mysql;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+
 /**
  * 数据源上下文持有者
- * 使用ThreadLocal来保存当前线程的数据源类型
+ * 使用ThreadLocal保存当前线程的数据源类型栈，嵌套的@DataSource方法返回后恢复外层的数据源；
+ * 栈为空时移除ThreadLocal，线程池(包括虚拟线程)中的线程不会残留上一个任务的数据源
  */
 public class DataSourceContextHolder {
     
-    private static final ThreadLocal<DataSourceType> CONTEXT_HOLDER = new ThreadLocal<>();
+    private static final ThreadLocal<Deque<DataSourceType>> CONTEXT_HOLDER = new ThreadLocal<>();
     
     /**
-     * 设置数据源类型
+     * 进入指定数据源
      * @param dataSourceType 数据源类型
      */
-    public static void setDataSourceType(DataSourceType dataSourceType) {
-        CONTEXT_HOLDER.set(dataSourceType);
+    public static void push(DataSourceType dataSourceType) {
+        Deque<DataSourceType> stack = CONTEXT_HOLDER.get();
+        if (stack == null) {
+            stack = new ArrayDeque<>();
+            CONTEXT_HOLDER.set(stack);
+        }
+        stack.push(dataSourceType);
     }
     
     /**
      * 获取数据源类型
-     * @return 数据源类型
+     * @return 数据源类型，未指定时返回null
      */
     public static DataSourceType getDataSourceType() {
-        return CONTEXT_HOLDER.get();
+        Deque<DataSourceType> stack = CONTEXT_HOLDER.get();
+        return stack == null ? null : stack.peek();
     }
     
     /**
-     * 清除数据源类型
+     * 退出当前数据源，恢复外层的数据源
      */
-    public static void clearDataSourceType() {
-        CONTEXT_HOLDER.remove();
+    public static void pop() {
+        Deque<DataSourceType> stack = CONTEXT_HOLDER.get();
+        if (stack == null) {
+            return;
+        }
+        stack.poll();
+        if (stack.isEmpty()) {
+            CONTEXT_HOLDER.remove();
+        }
     }
-}
\ No newline at end of file
+}
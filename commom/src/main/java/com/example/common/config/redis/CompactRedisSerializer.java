@@ -0,0 +1,116 @@
+package com.example.common.config.redis;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Redis值序列化器
+ * 写入格式由配置决定：json - 与原来的GenericJackson2JsonRedisSerializer一致；smile - Smile二进制，超过阈值时LZ4压缩
+ * 二进制数据首字节为格式版本号，读取时按版本号解码，不是已知版本号的按JSON读取，
+ * 因此切换格式前写入的JSON数据仍可读取
+ * 滚动升级时先以json格式部署所有实例，再切换为smile
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    public static final String FORMAT_JSON = "json";
+    public static final String FORMAT_SMILE = "smile";
+
+    /**
+     * 版本号: Smile 未压缩
+     */
+    private static final byte SMILE = 0x01;
+
+    /**
+     * 版本号: Smile + LZ4，版本号后4字节为压缩前长度
+     */
+    private static final byte SMILE_LZ4 = 0x02;
+
+    private static final LZ4Factory LZ4 = LZ4Factory.fastestInstance();
+
+    private final boolean writeSmile;
+    private final int compressThreshold;
+    private final ObjectMapper smileMapper;
+    private final GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
+
+    /**
+     * @param format            写入格式 json/smile
+     * @param compressThreshold Smile数据达到该字节数时压缩
+     */
+    public CompactRedisSerializer(String format, int compressThreshold) {
+        if (!FORMAT_JSON.equals(format) && !FORMAT_SMILE.equals(format)) {
+            throw new RuntimeException("不支持的Redis值格式: " + format);
+        }
+        this.writeSmile = FORMAT_SMILE.equals(format);
+        this.compressThreshold = compressThreshold;
+        // 与JSON序列化器一样记录类型信息，读取时还原为原来的类型
+        this.smileMapper = new ObjectMapper(new SmileFactory());
+        this.smileMapper.activateDefaultTyping(smileMapper.getPolymorphicTypeValidator(),
+                ObjectMapper.DefaultTyping.EVERYTHING, JsonTypeInfo.As.PROPERTY);
+        // 新版本增加的字段在旧版本中忽略
+        this.smileMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (!writeSmile) {
+            return jsonSerializer.serialize(value);
+        }
+        if (value == null) {
+            return new byte[0];
+        }
+        byte[] smile;
+        try {
+            smile = smileMapper.writeValueAsBytes(value);
+        } catch (Exception e) {
+            throw new SerializationException("Smile序列化失败: " + e.getMessage(), e);
+        }
+        if (smile.length >= compressThreshold) {
+            LZ4Compressor compressor = LZ4.fastCompressor();
+            byte[] compressed = compressor.compress(smile);
+            // 压缩效果不明显时保存未压缩数据，读取时省去解压
+            if (compressed.length + 5 < smile.length) {
+                return ByteBuffer.allocate(compressed.length + 5)
+                        .put(SMILE_LZ4)
+                        .putInt(smile.length)
+                        .put(compressed)
+                        .array();
+            }
+        }
+        return ByteBuffer.allocate(smile.length + 1).put(SMILE).put(smile).array();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            switch (bytes[0]) {
+                case SMILE:
+                    return smileMapper.readValue(bytes, 1, bytes.length - 1, Object.class);
+                case SMILE_LZ4:
+                    int length = ByteBuffer.wrap(bytes, 1, 4).getInt();
+                    LZ4FastDecompressor decompressor = LZ4.fastDecompressor();
+                    byte[] smile = decompressor.decompress(bytes, 5, length);
+                    return smileMapper.readValue(smile, Object.class);
+                default:
+                    // JSON文本不会以版本号字节开头
+                    return jsonSerializer.deserialize(bytes);
+            }
+        } catch (SerializationException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SerializationException("Redis值反序列化失败: " + e.getMessage(), e);
+        }
+    }
+}
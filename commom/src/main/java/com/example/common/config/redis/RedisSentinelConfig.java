@@ -8,7 +8,7 @@ import org.springframework.data.redis.connection.RedisNode;
 import org.springframework.data.redis.connection.RedisSentinelConfiguration;
 import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import redis.clients.jedis.JedisPoolConfig;
 
@@ -59,6 +59,20 @@ public class RedisSentinelConfig {
     @Value("${spring.redis.sentinel.read-from-slave:true}")
     private Boolean readFromSlave;
 
+    /**
+     * Redis值写入格式
+     * json - JSON文本；smile - Smile二进制，超过阈值时LZ4压缩
+     * 两种格式的数据都可以读取，切换为smile前需要所有实例都已升级
+     */
+    @Value("${spring.redis.value-format:json}")
+    private String valueFormat;
+
+    /**
+     * smile格式下数据达到该字节数时压缩
+     */
+    @Value("${spring.redis.compress-threshold:1024}")
+    private Integer compressThreshold;
+
     /**
      * 连接超时时间（毫秒）
      */
@@ -145,6 +159,16 @@ public class RedisSentinelConfig {
         return factory;
     }
 
+    /**
+     * 配置Redis值序列化器
+     *
+     * @return 值序列化器
+     */
+    @Bean(name = "redisValueSerializer")
+    public RedisSerializer<Object> redisValueSerializer() {
+        return new CompactRedisSerializer(valueFormat, compressThreshold);
+    }
+
     /**
      * 配置RedisTemplate
      * 设置键值序列化方式，支持字符串键和JSON值
@@ -164,10 +188,10 @@ public class RedisSentinelConfig {
         template.setKeySerializer(stringSerializer);
         template.setHashKeySerializer(stringSerializer);
         
-        // 设置值的序列化方式为JSON
-        GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
-        template.setValueSerializer(jsonSerializer);
-        template.setHashValueSerializer(jsonSerializer);
+        // 设置值的序列化方式，格式由spring.redis.value-format决定
+        RedisSerializer<Object> valueSerializer = redisValueSerializer();
+        template.setValueSerializer(valueSerializer);
+        template.setHashValueSerializer(valueSerializer);
         
         // 启用事务支持
         template.setEnableTransactionSupport(true);
@@ -0,0 +1,60 @@
+package com.example.common.config.thread;
+
+import jakarta.annotation.Resource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 阻塞调用(Feign、JDBC、第三方接口)使用的线程池
+ * spring.threads.virtual.enabled=true 且运行在Java 21及以上时每个任务一个虚拟线程，Tomcat请求线程同样切换为虚拟线程；
+ * 否则使用固定大小的平台线程池。虚拟线程模式下线程数不再限制并发，调用方需按下游容量自行限流
+ * 各模块默认按Java 17构建和运行，使用平台线程池；需要虚拟线程时使用 -Pvirtual-threads 按Java 21构建并在Java 21上运行
+ */
+@Component
+public class BlockingExecutors implements DisposableBean {
+
+    @Resource
+    private Environment environment;
+
+    private final List<ExecutorService> pools = new CopyOnWriteArrayList<>();
+
+    /**
+     * 与Spring Boot的虚拟线程开关判断一致：开启配置且运行在Java 21及以上
+     */
+    public boolean isVirtual() {
+        return environment.getProperty("spring.threads.virtual.enabled", boolean.class, false)
+                && Runtime.version().feature() >= 21;
+    }
+
+    /**
+     * 创建线程池
+     *
+     * @param name     线程名前缀
+     * @param poolSize 平台线程池大小，虚拟线程模式下不使用
+     */
+    public AsyncTaskExecutor create(String name, int poolSize) {
+        if (isVirtual()) {
+            return new VirtualThreadTaskExecutor(name + "-");
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(poolSize, new CustomizableThreadFactory(name + "-"));
+        pools.add(pool);
+        return new TaskExecutorAdapter(pool);
+    }
+
+    @Override
+    public void destroy() {
+        for (ExecutorService pool : pools) {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.common.config.thread;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 虚拟线程固定(pinning)监控
+ * 虚拟线程模式下通过JFR订阅 jdk.VirtualThreadPinned 事件，虚拟线程在synchronized或本地方法中阻塞超过阈值时
+ * 打印线程名、阻塞时长和栈顶调用，便于找出占住载体线程的代码；平台线程模式下不启动
+ */
+@Slf4j
+@Component
+public class VirtualThreadPinningMonitor implements DisposableBean {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    /**
+     * 日志中打印的栈帧数
+     */
+    private static final int MAX_FRAMES = 8;
+
+    @Resource
+    private Environment environment;
+    @Resource
+    private BlockingExecutors blockingExecutors;
+
+    private RecordingStream stream;
+
+    @PostConstruct
+    public void start() {
+        if (!blockingExecutors.isVirtual()) {
+            return;
+        }
+        long threshold = environment.getProperty("thread.virtual.pinned-threshold-ms", long.class, 20L);
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(threshold)).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::report);
+        stream.startAsync();
+        log.info("虚拟线程固定监控已启动，阈值: {}ms", threshold);
+    }
+
+    private void report(RecordedEvent event) {
+        StringBuilder frames = new StringBuilder();
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        if (stackTrace != null) {
+            List<RecordedFrame> list = stackTrace.getFrames();
+            for (int i = 0; i < list.size() && i < MAX_FRAMES; i++) {
+                RecordedFrame frame = list.get(i);
+                frames.append("\n\tat ").append(frame.getMethod().getType().getName())
+                        .append('.').append(frame.getMethod().getName())
+                        .append(':').append(frame.getLineNumber());
+            }
+        }
+        log.warn("虚拟线程被固定，线程: {}, 时长: {}ms{}",
+                event.getThread() != null ? event.getThread().getJavaName() : null,
+                event.getDuration().toMillis(), frames);
+    }
+
+    @Override
+    public void destroy() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.common.dto;
+
+import com.example.common.entity.Game;
+import com.example.common.entity.Tag;
+import com.example.common.entity.Type;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.util.List;
+
+/**
+ * 游戏详情，包含游戏、所属类型和标签
+ */
+@Data
+@Accessors(chain = true)
+public class GameDetailDTO {
+    private Game game;
+    /**
+     * 游戏未设置类型或类型已删除时为null
+     */
+    private Type type;
+    private List<Tag> tags;
+}
@@ -35,6 +35,9 @@ public class GameExcelDTO {
     @ExcelProperty("分类ID")
     private BigInteger typeId;
     
+    @ExcelProperty("标签")
+    private String tags;
+    
     @ExcelProperty("创建时间")
     private Integer createTime;
     
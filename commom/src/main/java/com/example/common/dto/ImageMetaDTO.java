@@ -0,0 +1,15 @@
+package com.example.common.dto;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * 图片元数据，宽高未知时为null
+ */
+@Data
+@Accessors(chain = true)
+public class ImageMetaDTO {
+    private String src;
+    private Integer width;
+    private Integer height;
+}
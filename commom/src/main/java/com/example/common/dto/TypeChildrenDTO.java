@@ -0,0 +1,31 @@
+package com.example.common.dto;
+
+import com.example.common.entity.Game;
+import com.example.common.entity.Type;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.util.List;
+
+/**
+ * 类型及其子类型、游戏预览
+ * 用于批量获取多个类型的子类型
+ */
+@Data
+@Accessors(chain = true)
+public class TypeChildrenDTO {
+    /**
+     * 父类型
+     */
+    private Type type;
+
+    /**
+     * 子类型列表
+     */
+    private List<Type> childrenList;
+
+    /**
+     * 该类型下的游戏预览，未请求时为空
+     */
+    private List<Game> gameList;
+}
@@ -0,0 +1,16 @@
+package com.example.common.dto;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.math.BigInteger;
+
+/**
+ * 按类型分组的游戏数量
+ */
+@Data
+@Accessors(chain = true)
+public class TypeCountDTO {
+    private BigInteger typeId;
+    private Integer total;
+}
@@ -1,9 +1,11 @@
 package com.example.common.entity;
 
+import com.example.common.dto.IntroductionDTO;
 import lombok.Data;
 import lombok.experimental.Accessors;
 
 import java.math.BigInteger;
+import java.util.List;
 @Data
 @Accessors(chain = true)
 public class Game {
@@ -18,5 +20,19 @@ public class Game {
     private Integer updateTime;
     private Integer isDeleted;
     private BigInteger typeId;
+    /**
+     * 封面图片地址及宽高，写入时由images计算
+     */
+    private String cover;
+    private Integer coverWidth;
+    private Integer coverHeight;
+    /**
+     * 全部图片的地址及宽高，ImageMetaDTO列表的JSON
+     */
+    private String imageMeta;
+    /**
+     * 解析后的游戏介绍，读取详情时填充并随详情缓存，不对应数据库字段
+     */
+    private List<IntroductionDTO> introductionBlocks;
 
 }
@@ -12,4 +12,13 @@ public class GameListDTO {
     private String images;
     private BigInteger typeId;
     private String typeName;
+    /**
+     * 列表投影使用的字段，封面未回填时取images中的第一张
+     */
+    private String cover;
+    private Integer coverWidth;
+    private Integer coverHeight;
+    private Float price;
+    private Integer createTime;
+    private Integer updateTime;
 }
@@ -13,5 +13,7 @@ public class Wp {
     private Integer page;
     private String ids;
     private Integer pageSize;
+    // 上一页最后一条游戏ID，用于按ID游标翻页
+    private BigInteger lastId;
 
 }
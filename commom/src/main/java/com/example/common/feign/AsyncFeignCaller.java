@@ -0,0 +1,110 @@
+package com.example.common.feign;
+
+import com.example.common.config.thread.BlockingExecutors;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Feign异步调用
+ * 将同步的Feign调用提交到独立线程池执行并返回CompletableFuture，每次调用带超时，
+ * 互不依赖的调用可以同时发出，总耗时接近其中最慢的一次
+ * 同时进行的调用数由信号量按provider容量限制，与线程数无关
+ */
+@Slf4j
+@Component
+public class AsyncFeignCaller {
+
+    @Resource
+    private BlockingExecutors blockingExecutors;
+
+    /**
+     * 最大并发调用数，平台线程模式下同时也是线程数
+     */
+    @Value("${feign.async.max-concurrency:32}")
+    private int maxConcurrency;
+
+    /**
+     * 默认超时时间，超时后future以TimeoutException结束，底层请求仍由Feign的读超时兜底
+     */
+    @Value("${feign.async.timeout-ms:3000}")
+    private long defaultTimeoutMillis;
+
+    private AsyncTaskExecutor executor;
+    private Semaphore permits;
+
+    @PostConstruct
+    public void init() {
+        executor = blockingExecutors.create("feign-async", maxConcurrency);
+        permits = new Semaphore(maxConcurrency);
+    }
+
+    /**
+     * 异步调用，使用默认超时
+     */
+    public <T> CompletableFuture<T> call(Supplier<T> call) {
+        return call(call, defaultTimeoutMillis);
+    }
+
+    /**
+     * 异步调用
+     *
+     * @param timeoutMillis 超时时间(ms)
+     */
+    public <T> CompletableFuture<T> call(Supplier<T> call, long timeoutMillis) {
+        return CompletableFuture.supplyAsync(() -> limited(call), executor)
+                .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 异步调用，失败或超时时返回fallback
+     */
+    public <T> CompletableFuture<T> callOrDefault(String name, Supplier<T> call, long timeoutMillis, T fallback) {
+        return call(call, timeoutMillis).exceptionally(e -> {
+            log.warn("异步调用失败，使用默认值，调用: {}, 原因: {}", name, causeOf(e).toString());
+            return fallback;
+        });
+    }
+
+    /**
+     * 等待结果，调用抛出的RuntimeException原样抛出，超时抛出RuntimeException
+     */
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = causeOf(e);
+            if (cause instanceof TimeoutException) {
+                throw new RuntimeException("调用超时", cause);
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    private <T> T limited(Supplier<T> call) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待调用许可被中断", e);
+        }
+        try {
+            return call.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static Throwable causeOf(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+}
@@ -21,6 +21,7 @@ public class ResponseCode {
         statusMap.put(4006,"请求资源不存在");
         statusMap.put(4007,"请求参数为空");
         statusMap.put(4008,"读取图片尺寸失败");
+        statusMap.put(4009,"系统繁忙，请稍后重试");
 
     }
 
@@ -0,0 +1,29 @@
+package com.example.common.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 事务工具类
+ */
+public class TransactionUtils {
+
+    /**
+     * 在当前事务提交后执行任务，没有事务时立即执行
+     * 用于同步内存索引、缓存等，避免回滚后留下脏数据
+     *
+     * @param task 待执行的任务
+     */
+    public static void afterCommit(Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                task.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.common.config.mysql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DataSourceContextHolderTests {
+
+    @AfterEach
+    void clear() {
+        while (DataSourceContextHolder.getDataSourceType() != null) {
+            DataSourceContextHolder.pop();
+        }
+    }
+
+    @Test
+    void emptyByDefault() {
+        assertNull(DataSourceContextHolder.getDataSourceType());
+    }
+
+    @Test
+    void nestedPopRestoresOuter() {
+        DataSourceContextHolder.push(DataSourceType.SLAVE);
+        DataSourceContextHolder.push(DataSourceType.MASTER);
+        assertEquals(DataSourceType.MASTER, DataSourceContextHolder.getDataSourceType());
+
+        DataSourceContextHolder.pop();
+        assertEquals(DataSourceType.SLAVE, DataSourceContextHolder.getDataSourceType());
+
+        DataSourceContextHolder.pop();
+        assertNull(DataSourceContextHolder.getDataSourceType());
+    }
+
+    @Test
+    void sameTypeNestedTwice() {
+        DataSourceContextHolder.push(DataSourceType.MASTER);
+        DataSourceContextHolder.push(DataSourceType.MASTER);
+        DataSourceContextHolder.pop();
+        assertEquals(DataSourceType.MASTER, DataSourceContextHolder.getDataSourceType());
+    }
+
+    @Test
+    void popOnEmptyIsIgnored() {
+        DataSourceContextHolder.pop();
+        assertNull(DataSourceContextHolder.getDataSourceType());
+
+        DataSourceContextHolder.push(DataSourceType.SLAVE);
+        DataSourceContextHolder.pop();
+        DataSourceContextHolder.pop();
+        assertNull(DataSourceContextHolder.getDataSourceType());
+    }
+
+    @Test
+    void threadsDoNotShareStack() {
+        DataSourceContextHolder.push(DataSourceType.MASTER);
+        DataSourceType other = CompletableFuture.supplyAsync(DataSourceContextHolder::getDataSourceType).join();
+        assertNull(other);
+        assertEquals(DataSourceType.MASTER, DataSourceContextHolder.getDataSourceType());
+    }
+}
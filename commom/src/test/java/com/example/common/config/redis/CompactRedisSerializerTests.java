@@ -0,0 +1,87 @@
+package com.example.common.config.redis;
+
+import com.example.common.entity.Game;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CompactRedisSerializerTests {
+
+    private static final int THRESHOLD = 256;
+
+    private final CompactRedisSerializer json = new CompactRedisSerializer(CompactRedisSerializer.FORMAT_JSON, THRESHOLD);
+    private final CompactRedisSerializer smile = new CompactRedisSerializer(CompactRedisSerializer.FORMAT_SMILE, THRESHOLD);
+
+    private static Game game(long id, String name) {
+        return new Game()
+                .setId(BigInteger.valueOf(id))
+                .setGameName(name)
+                .setTypeId(BigInteger.TEN)
+                .setPrice(9.9f);
+    }
+
+    @Test
+    void jsonMatchesGenericJackson2Json() {
+        Game game = game(1, "游戏");
+        assertArrayEquals(new GenericJackson2JsonRedisSerializer().serialize(game), json.serialize(game));
+        assertEquals(game, json.deserialize(json.serialize(game)));
+    }
+
+    @Test
+    void smileRoundTrip() {
+        CompactRedisSerializer uncompressed = new CompactRedisSerializer(CompactRedisSerializer.FORMAT_SMILE, Integer.MAX_VALUE);
+        Game game = game(2, "short");
+        byte[] bytes = uncompressed.serialize(game);
+        assertEquals(0x01, bytes[0]);
+        assertEquals(game, uncompressed.deserialize(bytes));
+        assertEquals(game, smile.deserialize(bytes));
+    }
+
+    @Test
+    void smileCompressedRoundTrip() {
+        List<Game> games = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            games.add(game(i, "重复的游戏名称重复的游戏名称"));
+        }
+        byte[] bytes = smile.serialize(games);
+        assertEquals(0x02, bytes[0]);
+        Object value = smile.deserialize(bytes);
+        assertInstanceOf(List.class, value);
+        assertEquals(games, value);
+    }
+
+    @Test
+    void smileReadsLegacyJson() {
+        Game game = game(3, "legacy");
+        byte[] legacy = new GenericJackson2JsonRedisSerializer().serialize(game);
+        assertEquals(game, smile.deserialize(legacy));
+
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("total", 3);
+        map.put("list", new ArrayList<>(List.of("a", "b")));
+        assertEquals(map, smile.deserialize(new GenericJackson2JsonRedisSerializer().serialize(map)));
+    }
+
+    @Test
+    void jsonReadsSmile() {
+        Game game = game(4, "rolling");
+        assertEquals(game, json.deserialize(smile.serialize(game)));
+    }
+
+    @Test
+    void nullAndEmpty() {
+        assertNull(smile.deserialize(null));
+        assertNull(smile.deserialize(new byte[0]));
+        assertEquals(0, smile.serialize(null).length);
+    }
+}
@@ -1,16 +1,25 @@
 package com.example.consumerapp;
 
+import com.example.common.config.feign.FeignCodecConfig;
+import com.example.common.config.feign.FeignTransportConfig;
+import com.example.common.config.thread.BlockingExecutors;
+import com.example.common.config.thread.VirtualThreadPinningMonitor;
+import com.example.common.feign.AsyncFeignCaller;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
 import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(exclude = {
     DataSourceAutoConfiguration.class,
     HibernateJpaAutoConfiguration.class
 })
 @EnableFeignClients(basePackages = "com.example.consumerapp.feign")
+@EnableScheduling
+@Import({FeignTransportConfig.class, FeignCodecConfig.class, BlockingExecutors.class, VirtualThreadPinningMonitor.class, AsyncFeignCaller.class})
 public class ConsumerAppApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,74 @@
+package com.example.consumerapp.config;
+
+import com.example.common.cache.CacheNames;
+import com.example.common.cache.TwoLevelCache;
+import com.example.common.config.redis.RedisSentinelConfig;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.time.Duration;
+
+/**
+ * 二级缓存配置
+ * 本服务的缓存使用自己的缓存名称，不写入provider的缓存；跟随provider的失效消息一起失效
+ */
+@Configuration
+@Import(RedisSentinelConfig.class)
+public class CacheConfig {
+
+    @Value("${cache.local.max-size:10000}")
+    private long localMaxSize;
+
+    @Value("${cache.local.ttl:60000}")
+    private long localTtl;
+
+    @Value("${cache.redis.ttl:1800000}")
+    private long redisTtl;
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
+    /**
+     * 二级缓存使用的RedisTemplate，不开启事务支持
+     */
+    @Bean(name = "cacheRedisTemplate")
+    public RedisTemplate<String, Object> cacheRedisTemplate(RedisConnectionFactory connectionFactory,
+                                                            @Qualifier("redisValueSerializer") RedisSerializer<Object> valueSerializer) {
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        StringRedisSerializer stringSerializer = new StringRedisSerializer();
+        template.setKeySerializer(stringSerializer);
+        template.setHashKeySerializer(stringSerializer);
+        template.setValueSerializer(valueSerializer);
+        template.setHashValueSerializer(valueSerializer);
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    /**
+     * 游戏详情缓存(游戏、类型、标签)，键为游戏ID
+     * provider的游戏或其标签失效时失效对应游戏，类型或标签字典变化时整体清空
+     */
+    @Bean(name = "gameDetailStore")
+    public TwoLevelCache gameDetailStore(@Qualifier("cacheRedisTemplate") RedisTemplate<String, Object> cacheRedisTemplate,
+                                         RedisMessageListenerContainer container) {
+        return new TwoLevelCache(CacheNames.APP_GAME_DETAIL, cacheRedisTemplate, container, localMaxSize,
+                Duration.ofMillis(localTtl), Duration.ofMillis(redisTtl))
+                .evictOn(CacheNames.GAME_DETAIL)
+                .evictOn(CacheNames.GAME_TAG_IDS)
+                .clearOn(CacheNames.TYPE)
+                .clearOnChannel(CacheNames.TAG_DICTIONARY_CHANNEL);
+    }
+}
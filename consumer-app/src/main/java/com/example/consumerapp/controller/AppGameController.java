@@ -2,10 +2,14 @@ package com.example.consumerapp.controller;
 
 import com.alibaba.fastjson.JSON;
 import com.example.common.annotations.VerifiedUser;
+import com.example.common.cache.TwoLevelCache;
+import com.example.common.dto.IntroductionDTO;
+import com.example.common.dto.GameDetailDTO;
 import com.example.common.entity.*;
 import com.example.common.utils.Response;
 import com.example.consumerapp.controller.domain.game.*;
 import com.example.consumerapp.feign.AppGameServiceFeign;
+import feign.FeignException;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -15,6 +19,8 @@ import org.springframework.web.bind.annotation.RestController;
 import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -24,6 +30,18 @@ import java.util.regex.Pattern;
 public class AppGameController {
     @Resource
     private AppGameServiceFeign appGameServiceFeign;
+    @Resource(name = "gameDetailStore")
+    private TwoLevelCache gameDetailStore;
+
+    /**
+     * 旧数据没有图片元数据时，从文件名 xxx_宽x高.png 中解析尺寸
+     */
+    private static final Pattern COVER_SIZE_PATTERN = Pattern.compile(".*_(\\d+)x(\\d+)\\.png");
+
+    /**
+     * 正在重建的游戏列表，键为缓存键
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<GameListVO>> inflightLists = new ConcurrentHashMap<>();
 
     @RequestMapping("/info")
     public Response getAppGameInfo(@VerifiedUser User loginUser,
@@ -31,36 +49,34 @@ public class AppGameController {
         if (loginUser == null) {
             return new Response<>(1002);
         }
-        Game game;
+        // 游戏、类型、标签由provider一次返回，两级缓存都未命中时才调用，游戏不存在时不缓存
+        GameDetailDTO detail;
         try {
-            game = appGameServiceFeign.gameInfo(gameId);
-            if (game == null) {
+            detail = gameDetailStore.get(gameId.toString(), () -> {
+                GameDetailDTO loaded = appGameServiceFeign.gameDetail(gameId);
+                return loaded != null && loaded.getGame() != null ? loaded : null;
+            });
+            if (detail == null || detail.getGame() == null) {
                 return new Response<>(4004);
             }
         } catch (Exception e) {
             log.error("获取游戏信息失败: {}", e.getMessage(), e);
             return new Response<>(4004);
         }
-        Type type;
+        Game game = detail.getGame();
         String typeName = null;
         String typeImage = null;
 
         List<String> tagNames = null;
         if (game.getTypeId() != null) {
-            try {
-                type = appGameServiceFeign.typeInfo(game.getTypeId());
-                if (type == null) {
-                    log.info("未找到游戏类型：{}", game.getTypeId());
-                    return new Response(4006);
-                }
-                typeName = type.getTypeName();
-                typeImage = type.getImage();
-            } catch (Exception e) {
-                log.error("获取游戏类型失败: {}", e.getMessage(), e);
-                return new Response(4004);
+            Type type = detail.getType();
+            if (type == null) {
+                log.info("未找到游戏类型：{}", game.getTypeId());
+                return new Response(4006);
             }
-            List<Tag> tag = appGameServiceFeign.getTagsByGameId(gameId);
-            tagNames = tag.stream()
+            typeName = type.getTypeName();
+            typeImage = type.getImage();
+            tagNames = detail.getTags() == null ? new ArrayList<>() : detail.getTags().stream()
                     .map(Tag::getName)
                     .toList();
         }
@@ -82,7 +98,7 @@ public class AppGameController {
             gameInfo.setImages(Arrays.asList(game.getImages().split("\\$")));
         }
         try {
-            List<BaseIntroductionVO> introductionList = JSON.parseArray(game.getGameIntroduction(), BaseIntroductionVO.class);
+            List<BaseIntroductionVO> introductionList = toIntroductionVOs(game);
             gameInfo.setGameIntroduction(introductionList);
         } catch (Exception e) {
             log.error("解析游戏介绍失败: {}", e.getMessage(), e);
@@ -106,6 +122,7 @@ public class AppGameController {
 
         int currentPageSize = 10;
         Integer currentPage;
+        BigInteger lastId = BigInteger.ZERO;
 
         // 解析wp参数
         if (wp != null && !wp.isEmpty()) {
@@ -120,8 +137,14 @@ public class AppGameController {
                 }
 
                 currentPageSize = receiveWp.getPageSize();
+                if (currentPageSize <= 0 || currentPageSize > 100) {
+                    return new Response(4004);
+                }
                 keyword = receiveWp.getKeyword();
                 typeId = receiveWp.getTypeId();
+                if (receiveWp.getLastId() != null) {
+                    lastId = receiveWp.getLastId();
+                }
             } catch (Exception e) {
                 log.error("解析wp参数失败: {}", e.getMessage(), e);
                 return new Response(4004);
@@ -130,101 +153,103 @@ public class AppGameController {
             currentPage = 1;
         }
 
-        // 构建缓存键: game_list-关键词-typeId-page
+        // 本实例内的合并键，与provider的缓存键一致
         String cacheKey = "game_list-" +
                 (keyword != null ? keyword : "") + "-" +
                 (typeId != null ? typeId.toString() : "") + "-" +
-                currentPage;
+                lastId;
 
         log.info("用户 {} 请求游戏列表，keyword: {}, typeId: {}, page: {}, cacheKey: {}", loginUser.getId(), keyword, typeId, currentPage, cacheKey);
 
-        Object cachedResult = appGameServiceFeign.gameList(currentPage, keyword, typeId);
-        if (cachedResult != null) {
-            return new Response(1001, cachedResult);
+        // provider未命中时只有拿到重建租约的请求会得到null，其余请求得到新值或旧值，等待超时得到503
+        try {
+            Object cachedResult = appGameServiceFeign.listFromRedis(keyword, typeId, currentPage, lastId);
+            if (cachedResult != null) {
+                return new Response(1001, cachedResult);
+            }
+        } catch (FeignException.ServiceUnavailable e) {
+            log.info("游戏列表正在重建，cacheKey: {}", cacheKey);
+            return new Response(4009);
+        } catch (Exception e) {
+            log.warn("读取缓存失败: {}", e.getMessage());
         }
-        // 获取游戏列表
-        List<Game> gameList;
+
+        // 同一实例内同一页的并发重建合并为一次
+        CompletableFuture<GameListVO> future = new CompletableFuture<>();
+        CompletableFuture<GameListVO> existing = inflightLists.putIfAbsent(cacheKey, future);
+        if (existing != null) {
+            try {
+                return new Response(1001, existing.join());
+            } catch (Exception e) {
+                log.error("等待游戏列表重建失败: {}", e.getMessage());
+                return new Response(4004);
+            }
+        }
+
+        GameListVO result;
         try {
-            gameList = appGameServiceFeign.gameList(currentPage, keyword, typeId);
+            result = buildGameList(keyword, typeId, currentPage, currentPageSize, lastId);
+            future.complete(result);
         } catch (Exception e) {
             log.error("获取游戏列表失败: {}", e.getMessage(), e);
+            future.completeExceptionally(e);
             return new Response(4004);
+        } finally {
+            inflightLists.remove(cacheKey, future);
         }
 
-        // 收集类型ID
-        Set<BigInteger> typeIdSet = new HashSet<>();
-        for (Game game : gameList) {
-            BigInteger tid = game.getTypeId();
-            if (tid != null) {
-                typeIdSet.add(tid);
-            }
+        try {
+            appGameServiceFeign.listIntoRedis(keyword, typeId, currentPage, lastId, result);
+        } catch (Exception e) {
+            log.warn("存储缓存失败: {}", e.getMessage());
         }
 
-        // 获取类型信息
-        Map<BigInteger, String> typeMap = new HashMap<>();
-        if (!typeIdSet.isEmpty()) {
-            try {
-                List<Type> types = appGameServiceFeign.typeListByIds(typeIdSet);
-                for (Type type : types) {
-                    typeMap.put(type.getId(), type.getTypeName());
-                }
-            } catch (Exception e) {
-                log.error("获取类型信息失败: {}", e.getMessage(), e);
-                // 继续处理，类型不是必须的
-            }
-        }
+        return new Response(1001, result);
+    }
+
+    /**
+     * 重建一页游戏列表
+     */
+    private GameListVO buildGameList(String keyword, BigInteger typeId, Integer currentPage, int currentPageSize, BigInteger lastId) {
+        // 获取游戏列表投影(含类型名称)，按上一页最后一条ID向后翻页
+        List<GameListDTO> gameList = appGameServiceFeign.gameListViewAfter(lastId, keyword, typeId, currentPageSize);
+
+        // 下一页游标取本页最后一条游戏ID（过滤前），本页为空时保持不变
+        BigInteger nextLastId = gameList.isEmpty() ? lastId : gameList.get(gameList.size() - 1).getId();
 
         // 构建输出的wp对象
         Wp outputWp = new Wp();
         outputWp.setKeyword(keyword)
                 .setTypeId(typeId)
                 .setPage(currentPage + 1)
-                .setPageSize(currentPageSize);
+                .setPageSize(currentPageSize)
+                .setLastId(nextLastId);
 
         // 编码wp
         String encodeWp;
         try {
             encodeWp = Base64.getUrlEncoder().encodeToString(JSON.toJSONString(outputWp).getBytes(StandardCharsets.UTF_8));
         } catch (Exception e) {
-            log.error("编码wp失败: {}", e.getMessage(), e);
-            return new Response(4004);
+            throw new RuntimeException("编码wp失败", e);
         }
 
         // 构建游戏列表数据
         List<GameVO> gameVOList = new ArrayList<>();
-        for (Game game : gameList) {
-            if (game.getTypeId() == null || game.getImages() == null || game.getImages().isEmpty()) {
+        for (GameListDTO game : gameList) {
+            if (game.getTypeId() == null || game.getCover() == null || game.getCover().isEmpty()) {
                 log.info("游戏数据不完整，跳过：{}", game.getId());
                 continue;
             }
 
-            String typeName = typeMap.get(game.getTypeId());
+            String typeName = game.getTypeName();
             if (typeName == null) {
                 log.info("未找到游戏类型名称：{}", game.getTypeId());
                 continue;
             }
 
-            String image = game.getImages().split("\\$")[0];
-
-            // 计算图片宽高比
-            float ar = 0;
-            try {
-                String regex = ".*_(\\d+)x(\\d+)\\.png";
-                Pattern pattern = Pattern.compile(regex);
-                Matcher matcher = pattern.matcher(image);
-                if (matcher.find()) {
-                    int width = Integer.parseInt(matcher.group(1));
-                    int height = Integer.parseInt(matcher.group(2));
-                    ar = (float) width / height;
-                }
-            } catch (Exception e) {
-                log.info("解析图片尺寸失败: {}", e.getMessage());
-                // 继续处理，宽高比不是必须的
-            }
-
-            ImageVO imageVO = new ImageVO()
-                    .setSrc(image)
-                    .setAr(ar);
+            ImageVO imageVO = game.getCoverWidth() != null
+                    ? new ImageVO().setSrc(game.getCover()).setAr(aspectRatio(game.getCoverWidth(), game.getCoverHeight()))
+                    : parseCover(game.getCover());
 
             GameVO gameVO = new GameVO()
                     .setGameId(game.getId())
@@ -236,16 +261,48 @@ public class AppGameController {
         }
 
         // 构建最终响应对象
-        GameListVO result = new GameListVO()
+        return new GameListVO()
                 .setGameList(gameVOList)
                 .setWp(encodeWp);
+    }
+
+    /**
+     * 转换游戏介绍，优先使用provider已解析好的介绍，旧缓存数据中没有时再解析原文
+     */
+    private static List<BaseIntroductionVO> toIntroductionVOs(Game game) {
+        if (game.getIntroductionBlocks() == null) {
+            return JSON.parseArray(game.getGameIntroduction(), BaseIntroductionVO.class);
+        }
+        List<BaseIntroductionVO> result = new ArrayList<>(game.getIntroductionBlocks().size());
+        for (IntroductionDTO block : game.getIntroductionBlocks()) {
+            result.add(new BaseIntroductionVO().setType(block.getType()).setContent(block.getContent()));
+        }
+        return result;
+    }
+
+    private static float aspectRatio(Integer width, Integer height) {
+        if (width == null || height == null || height == 0) {
+            return 0;
+        }
+        return (float) width / height;
+    }
 
+    /**
+     * 从图片地址中解析封面，用于尚未回填图片元数据的游戏
+     */
+    private static ImageVO parseCover(String images) {
+        String image = images.split("\\$")[0];
+        // 计算图片宽高比
+        float ar = 0;
         try {
-            appGameServiceFeign.listIntoRedis(cacheKey, result);
+            Matcher matcher = COVER_SIZE_PATTERN.matcher(image);
+            if (matcher.find()) {
+                ar = aspectRatio(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            }
         } catch (Exception e) {
-            log.warn("存储缓存失败: {}", e.getMessage());
+            log.info("解析图片尺寸失败: {}", e.getMessage());
+            // 继续处理，宽高比不是必须的
         }
-
-        return new Response(1001, result);
+        return new ImageVO().setSrc(image).setAr(ar);
     }
-}
\ No newline at end of file
+}
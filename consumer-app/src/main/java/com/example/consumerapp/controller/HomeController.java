@@ -3,16 +3,18 @@ import com.example.common.annotations.VerifiedUser;
 import com.example.common.entity.User;
 import com.example.common.utils.Response;
 import com.example.consumerapp.service.HomeService;
+import com.example.consumerapp.service.HomeSnapshot;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.Map;
-
 /**
- * 首页控制器 - 提供复杂的首页接口，使用多线程优化性能
+ * 首页控制器 - 首页和模块数据来自后台刷新的快照
  */
 @Slf4j
 @RestController
@@ -31,21 +33,21 @@ public class HomeController {
      * 4. 推荐内容（商品列表）（title、price、image、id）
      */
     @RequestMapping("/index")
-    public Response getHomePage(@VerifiedUser User loginUser) {
+    public ResponseEntity<?> getHomePage(@VerifiedUser User loginUser) {
         long startTime = System.currentTimeMillis();
         try {
-            // 使用多线程并发获取首页各模块数据
-            Map<String, Object> homeData = homeService.getHomePageData();
+            // 直接返回后台刷新好的首页快照，客户端带If-None-Match且未变化时返回304
+            HomeSnapshot.Body body = homeService.getSnapshot().getIndex();
 
             long endTime = System.currentTimeMillis();
-            log.info("首页数据获取成功，耗时: {}ms", endTime - startTime);
+            log.debug("首页数据获取成功，耗时: {}ms", endTime - startTime);
 
-            return new Response<>(1001,  homeData);
+            return snapshotResponse(body);
 
         } catch (Exception e) {
             long endTime = System.currentTimeMillis();
             log.error("获取首页数据失败，耗时: {}ms", endTime - startTime, e);
-            return new Response<>(4004);
+            return ResponseEntity.ok(new Response<>(4004));
         }
     }
 
@@ -54,29 +56,29 @@ public class HomeController {
      * 支持的模块类型：banner、channel、event、product
      */
     @RequestMapping("/module")
-    public Response getModuleData(User loginUser,
-                                  @RequestParam("type") String moduleType) {
+    public ResponseEntity<?> getModuleData(User loginUser,
+                                           @RequestParam("type") String moduleType) {
         long startTime = System.currentTimeMillis();
         log.info("用户请求模块数据，模块类型: {}, 用户ID: {}",
                 moduleType, loginUser != null ? loginUser.getId() : "游客");
 
         try {
-            Object moduleData = homeService.getModuleData(moduleType);
+            HomeSnapshot.Body body = homeService.getModuleBody(moduleType);
 
             long endTime = System.currentTimeMillis();
             log.info("模块数据获取成功，模块类型: {}, 耗时: {}ms", moduleType, endTime - startTime);
 
-            return new Response(1001, moduleData);
+            return snapshotResponse(body);
 
         } catch (IllegalArgumentException e) {
             long endTime = System.currentTimeMillis();
             log.warn("不支持的模块类型: {}, 耗时: {}ms", moduleType, endTime - startTime);
-            return new Response(4004, e.getMessage());
+            return ResponseEntity.ok(new Response(4004, e.getMessage()));
 
         } catch (Exception e) {
             long endTime = System.currentTimeMillis();
             log.error("获取模块数据失败，模块类型: {}, 耗时: {}ms", moduleType, endTime - startTime, e);
-            return new Response(4004, "获取模块数据失败: " + e.getMessage());
+            return ResponseEntity.ok(new Response(4004, "获取模块数据失败: " + e.getMessage()));
         }
     }
 
@@ -143,4 +145,16 @@ public class HomeController {
             return new Response(4004, "获取推荐商品数据失败: " + e.getMessage());
         }
     }
+
+    /**
+     * 返回快照中序列化好的响应，带强ETag，客户端每次使用前需要重新验证
+     * If-None-Match与ETag一致时由Spring返回304
+     */
+    private static ResponseEntity<byte[]> snapshotResponse(HomeSnapshot.Body body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(body.getEtag())
+                .cacheControl(CacheControl.noCache())
+                .body(body.getBytes());
+    }
 }
\ No newline at end of file
@@ -1,15 +1,21 @@
 package com.example.consumerapp.feign;
 
+import com.example.common.dto.GameDetailDTO;
+import com.example.common.dto.TypeChildrenDTO;
 import com.example.common.entity.Game;
+import com.example.common.entity.GameListDTO;
 import com.example.common.entity.Tag;
 import com.example.common.entity.Type;
 import com.example.consumerapp.controller.domain.game.*;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import java.math.BigInteger;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -27,6 +33,26 @@ public interface AppGameServiceFeign {
     Game gameInfo(
             @RequestParam(name = "gameId") BigInteger gameId);
 
+    /**
+     * 获取游戏详情，同时返回类型和标签
+     *
+     * @param gameId 游戏ID
+     * @return 游戏详情
+     */
+    @RequestMapping("/detail")
+    GameDetailDTO gameDetail(
+            @RequestParam(name = "gameId") BigInteger gameId);
+
+    /**
+     * 批量获取游戏详情
+     *
+     * @param gameIds 游戏ID列表，最多200个
+     * @return 游戏列表，按传入顺序排列，不存在的游戏不返回
+     */
+    @RequestMapping("/batchInfo")
+    List<Game> batchGameInfo(
+            @RequestParam(name = "gameIds") List<BigInteger> gameIds);
+
     /**
      * 获取游戏列表
      */
@@ -36,6 +62,30 @@ public interface AppGameServiceFeign {
             @RequestParam(name = "keyword", required = false) String keyword,
             @RequestParam(name = "typeId", required = false) BigInteger type);
 
+    /**
+     * 按ID游标获取游戏列表投影，包含类型名称
+     *
+     * @param lastId   上一页最后一条游戏ID，首页传0
+     * @param pageSize 每页条数，1-100
+     */
+    @RequestMapping("/listViewAfter")
+    List<GameListDTO> gameListViewAfter(
+            @RequestParam(name = "lastId", defaultValue = "0") BigInteger lastId,
+            @RequestParam(name = "keyword", required = false) String keyword,
+            @RequestParam(name = "typeId", required = false) BigInteger typeId,
+            @RequestParam(name = "pageSize", defaultValue = "10") Integer pageSize);
+
+    /**
+     * 按ID游标获取游戏列表
+     *
+     * @param lastId 上一页最后一条游戏ID，首页传0
+     */
+    @RequestMapping("/listAfter")
+    List<Game> gameListAfter(
+            @RequestParam(name = "lastId", defaultValue = "0") BigInteger lastId,
+            @RequestParam(name = "keyword", required = false) String keyword,
+            @RequestParam(name = "typeId", required = false) BigInteger typeId);
+
     /**
      * 创建游戏
      */
@@ -81,11 +131,13 @@ public interface AppGameServiceFeign {
      * 获取游戏总数
      *
      * @param keyword
+     * @param typeId
      * @return
      */
     @RequestMapping("/totalCount")
     Integer getTotalCount(
-            @RequestParam(name = "keyword", required = false) String keyword);
+            @RequestParam(name = "keyword", required = false) String keyword,
+            @RequestParam(name = "typeId", required = false) BigInteger typeId);
 
     /**
      * 获取类型列表
@@ -117,6 +169,20 @@ public interface AppGameServiceFeign {
     List<ChildrenVO> childrenList(
             @RequestParam(name = "typeId") BigInteger typeId);
 
+    /**
+     * 批量获取类型及其子类型列表
+     *
+     * @param parentIds 父类型ID列表，为空时取前limit个类型
+     * @param limit     未指定父类型时返回的类型数量
+     * @param gameLimit 每个类型返回的游戏数量
+     * @return
+     */
+    @RequestMapping("/type/childrenListByParentIds")
+    List<TypeChildrenDTO> childrenListByParentIds(
+            @RequestParam(name = "parentIds", required = false) List<BigInteger> parentIds,
+            @RequestParam(name = "limit", defaultValue = "8") Integer limit,
+            @RequestParam(name = "gameLimit", defaultValue = "0") Integer gameLimit);
+
 
     /**
      * 创建类型
@@ -185,31 +251,49 @@ public interface AppGameServiceFeign {
     List<Tag> getTagsByGameId(
             @RequestParam(name = "gameId") BigInteger gameId);
 
+    /**
+     * 根据游戏id列表批量获取标签列表
+     *
+     * @param gameIds 游戏ID列表，最多200个
+     * @return 游戏ID -> 标签列表
+     */
+    @RequestMapping("/tagsByGameIds")
+    Map<BigInteger, List<Tag>> tagsByGameIds(
+            @RequestParam(name = "gameIds") List<BigInteger> gameIds);
+
     /**
      * 从缓存获取游戏列表
      *
      * @param keyword
      * @param typeId
      * @param page
+     * @param lastId
      * @return
      */
     @RequestMapping("/listFromRedis")
     Object listFromRedis(
             @RequestParam(name = "keyword", required = false) String keyword,
             @RequestParam(name = "typeId", required = false) BigInteger typeId,
-            @RequestParam(name = "currentPage",required = false) Integer page);
+            @RequestParam(name = "currentPage",required = false) Integer page,
+            @RequestParam(name = "lastId", required = false) BigInteger lastId);
 
     /**
      * 将游戏列表存入缓存
      *
-     * @param cacheKey
+     * @param keyword
+     * @param typeId
+     * @param page
+     * @param lastId
      * @param result
      * @return
      */
-    @RequestMapping("/listIntoRedis")
+    @RequestMapping(value = "/listIntoRedis", method = RequestMethod.POST)
     void listIntoRedis(
-            @RequestParam(name = "cacheKey", required = false) String cacheKey,
-            @RequestParam(name = "result", required = false) Object result);
+            @RequestParam(name = "keyword", required = false) String keyword,
+            @RequestParam(name = "typeId", required = false) BigInteger typeId,
+            @RequestParam(name = "currentPage", required = false) Integer page,
+            @RequestParam(name = "lastId", required = false) BigInteger lastId,
+            @RequestBody Object result);
 
 }
 
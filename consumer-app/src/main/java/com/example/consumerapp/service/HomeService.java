@@ -1,31 +1,37 @@
 package com.example.consumerapp.service;
 
+import com.example.common.dto.TypeChildrenDTO;
 import com.example.common.entity.Banner;
 import com.example.common.entity.Event;
 import com.example.common.entity.Game;
 import com.example.common.entity.Type;
+import com.example.common.feign.AsyncFeignCaller;
+import com.example.consumerapp.controller.domain.game.ChildrenVO;
 import com.example.consumerapp.controller.domain.game.GameListVO;
 import com.example.consumerapp.controller.domain.game.GameVO;
 import com.example.consumerapp.controller.domain.game.TypeVO;
 import com.example.consumerapp.feign.AppGameServiceFeign;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.math.BigInteger;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 
 /**
- * 首页服务类 - 使用多线程优化性能
+ * 首页服务类
+ * 首页数据对所有用户相同，后台定时刷新为快照，请求直接返回快照中序列化好的内容
  */
 @Slf4j
 @Service
@@ -33,54 +39,106 @@ public class HomeService {
 
     @Resource
     private AppGameServiceFeign gameService;
+    @Resource
+    private AsyncFeignCaller asyncFeignCaller;
+
+    @Resource
+    private ObjectMapper objectMapper;
 
-    private final ExecutorService executorService = Executors.newFixedThreadPool(4);
+    private static final String MODULE_BANNER = "banner";
+    private static final String MODULE_CHANNEL = "channel";
+    private static final String MODULE_EVENT = "event";
+    private static final String MODULE_PRODUCT = "product";
 
     /**
-     * 获取首页所有数据 - 多线程并发获取
+     * 模块类型 -> 首页响应中的字段名
      */
-    public Map<String, Object> getHomePageData() {
-        log.info("开始获取首页数据，使用多线程并发处理");
-
-        try {
-            // 使用CompletableFuture并发执行四个任务
-            CompletableFuture<List<Banner>> bannerFuture = CompletableFuture
-                    .supplyAsync(this::getBannerList, executorService);
-
-            CompletableFuture<List<TypeVO>> channelFuture = CompletableFuture
-                    .supplyAsync(this::getChannelList, executorService);
+    private static final Map<String, String> DATA_KEYS = Map.of(
+            MODULE_BANNER, "banners",
+            MODULE_CHANNEL, "channels",
+            MODULE_EVENT, "events",
+            MODULE_PRODUCT, "recommendProducts");
 
-            CompletableFuture<List<Event>> eventFuture = CompletableFuture
-                    .supplyAsync(this::getEventList, executorService);
-
-            CompletableFuture<GameListVO> productFuture = CompletableFuture
-                    .supplyAsync(this::getRecommendProductList, executorService);
-
-            // 等待所有任务完成并获取结果
-            List<Banner> banners = bannerFuture.get();
-            List<TypeVO> channels = channelFuture.get();
-            List<Event> events = eventFuture.get();
-            List<GameListVO> products = (List<GameListVO>) productFuture.get();
+    /**
+     * 单个模块的超时时间(ms)，超时的模块沿用上一份快照中的数据，不影响其他模块
+     */
+    @Value("${home.module-timeout-ms:2000}")
+    private long moduleTimeoutMillis;
 
-            // 组装返回数据
-            Map<String, Object> result = new HashMap<>();
-            result.put("banners", banners);
-            result.put("channels", channels);
-            result.put("events", events);
-            result.put("recommendProducts", products);
-            result.put("timestamp", System.currentTimeMillis());
+    /**
+     * 当前首页快照，刷新时整体替换
+     */
+    private volatile HomeSnapshot snapshot;
 
-            log.info("首页数据获取完成，banners: {}, channels: {}, events: {}, products: {}",
-                    banners.size(), channels.size(), events.size(), products.size());
+    private final ReentrantLock refreshLock = new ReentrantLock();
 
-            return result;
+    /**
+     * 获取首页快照，尚未加载时同步加载一次
+     */
+    public HomeSnapshot getSnapshot() {
+        HomeSnapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        refreshLock.lock();
+        try {
+            if (snapshot == null) {
+                refreshSnapshot();
+            }
+            return snapshot;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
 
+    /**
+     * 定时刷新首页快照
+     * 各模块并发获取，单个模块失败或超时时沿用上一份快照中的数据；内容不变时不替换快照，ETag保持不变
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${home.snapshot.refresh-interval:30000}")
+    public void refreshSnapshot() {
+        refreshLock.lock();
+        try {
+            long startTime = System.currentTimeMillis();
+            HomeSnapshot current = snapshot;
+
+            // 四个模块并发获取，每个模块单独超时
+            Map<String, CompletableFuture<?>> futures = new LinkedHashMap<>();
+            futures.put(MODULE_BANNER, asyncFeignCaller.call(this::getBannerList, moduleTimeoutMillis));
+            futures.put(MODULE_CHANNEL, asyncFeignCaller.call(this::getChannelList, moduleTimeoutMillis));
+            futures.put(MODULE_EVENT, asyncFeignCaller.call(this::getEventList, moduleTimeoutMillis));
+            futures.put(MODULE_PRODUCT, asyncFeignCaller.call(this::getRecommendProductList, moduleTimeoutMillis));
+
+            Map<String, Object> modules = new LinkedHashMap<>();
+            for (Map.Entry<String, CompletableFuture<?>> entry : futures.entrySet()) {
+                String module = entry.getKey();
+                try {
+                    modules.put(module, AsyncFeignCaller.join(entry.getValue()));
+                } catch (Exception e) {
+                    Object previous = current != null ? current.getModules().get(module) : null;
+                    log.warn("刷新首页模块失败，沿用旧数据: {}, 模块: {}, 原因: {}", previous != null, module, e.getMessage());
+                    modules.put(module, previous != null ? previous : emptyModule(module));
+                }
+            }
+
+            HomeSnapshot next = HomeSnapshot.of(objectMapper, modules, DATA_KEYS);
+            if (current != null && current.getContentHash().equals(next.getContentHash())) {
+                return;
+            }
+            snapshot = next;
+            log.info("首页快照已刷新，ETag: {}, 大小: {}B, 耗时: {}ms",
+                    next.getIndex().getEtag(), next.getIndex().getBytes().length, System.currentTimeMillis() - startTime);
         } catch (Exception e) {
-            log.error("获取首页数据失败", e);
-            throw new RuntimeException("获取首页数据失败: " + e.getMessage());
+            log.error("刷新首页快照失败", e);
+        } finally {
+            refreshLock.unlock();
         }
     }
 
+    private static Object emptyModule(String module) {
+        return MODULE_PRODUCT.equals(module) ? new GameListVO().setGameList(new ArrayList<>()) : new ArrayList<>();
+    }
+
     /**
      * 获取Banner列表 - 模拟数据
      */
@@ -118,28 +176,34 @@ public class HomeService {
     private List<TypeVO> getChannelList() {
         log.info("开始获取Channel数据");
 
-        try {
-            // 获取启用的分类作为频道
-            List<Type> types = gameService.typeList(null);
-            List<TypeVO> channels = types.stream()
-                    .filter(type -> type.getIsDeleted() == 0)
-                    .map(type -> new TypeVO()
-                            .setTypeId(type.getId())
-                            .setTypeName(type.getTypeName())
-                            .setImage(type.getImage())
-                            .setChildrenList(gameService.childrenList(type.getId()))
-                    )
-                    .limit(8)
-                    .collect(Collectors.toList());
-
-
-            log.info("Channel数据获取完成，数量: {}", channels.size());
-            return channels;
+        // 获取启用的分类作为频道，子类型随分类一次返回
+        List<TypeChildrenDTO> types = gameService.childrenListByParentIds(null, 8, 0);
+        List<TypeVO> channels = types.stream()
+                .map(item -> new TypeVO()
+                        .setTypeId(item.getType().getId())
+                        .setTypeName(item.getType().getTypeName())
+                        .setImage(item.getType().getImage())
+                        .setChildrenList(toChildrenVOList(item.getChildrenList()))
+                )
+                .collect(Collectors.toList());
 
-        } catch (Exception e) {
-            log.error("获取Channel数据失败", e);
-            return new ArrayList<>();
+
+        log.info("Channel数据获取完成，数量: {}", channels.size());
+        return channels;
+    }
+
+    private List<ChildrenVO> toChildrenVOList(List<Type> children) {
+        List<ChildrenVO> result = new ArrayList<>();
+        if (children == null) {
+            return result;
+        }
+        for (Type child : children) {
+            result.add(new ChildrenVO()
+                    .setTypeId(child.getId())
+                    .setTypeName(child.getTypeName())
+                    .setImage(child.getImage()));
         }
+        return result;
     }
 
     /**
@@ -189,36 +253,40 @@ public class HomeService {
     private GameListVO getRecommendProductList() {
         log.info("开始获取推荐商品数据");
 
-        try {
-            // 获取游戏数据作为推荐商品
-            List<Game> games = gameService.gameList(1, null, null);
-            List<GameVO> gameList = new ArrayList<>();
-            games.forEach(game -> gameList.add(new GameVO()
-                    .setGameId(game.getId())
-                    .setGameName(game.getGameName())));
-            GameListVO gameListVO = new GameListVO()
-                    .setGameList(gameList);
-
-            return gameListVO;
+        // 获取游戏数据作为推荐商品
+        List<Game> games = gameService.gameList(1, null, null);
+        List<GameVO> gameList = new ArrayList<>();
+        games.forEach(game -> gameList.add(new GameVO()
+                .setGameId(game.getId())
+                .setGameName(game.getGameName())));
+        GameListVO gameListVO = new GameListVO()
+                .setGameList(gameList);
 
-        } catch (Exception e) {
-            log.error("获取推荐商品数据失败", e);
-            return null;
-        }
+        return gameListVO;
     }
 
     /**
-     * 获取单个模块数据 - 用于单独刷新某个模块
+     * 获取单个模块数据 - 用于单独刷新某个模块，数据来自首页快照
      */
     public Object getModuleData(String moduleType) {
         log.info("获取模块数据: {}", moduleType);
 
-        return switch (moduleType.toLowerCase()) {
-            case "banner" -> getBannerList();
-            case "channel" -> getChannelList();
-            case "event" -> getEventList();
-            case "product" -> getRecommendProductList();
-            default -> throw new IllegalArgumentException("不支持的模块类型: " + moduleType);
-        };
+        HomeSnapshot current = getSnapshot();
+        String module = moduleType.toLowerCase();
+        if (!current.getModules().containsKey(module)) {
+            throw new IllegalArgumentException("不支持的模块类型: " + moduleType);
+        }
+        return current.getModules().get(module);
+    }
+
+    /**
+     * 获取单个模块序列化好的响应
+     */
+    public HomeSnapshot.Body getModuleBody(String moduleType) {
+        HomeSnapshot.Body body = getSnapshot().getModuleBodies().get(moduleType.toLowerCase());
+        if (body == null) {
+            throw new IllegalArgumentException("不支持的模块类型: " + moduleType);
+        }
+        return body;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,94 @@
+package com.example.consumerapp.service;
+
+import com.example.common.utils.Response;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import org.springframework.util.DigestUtils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 首页快照
+ * 首页和各模块的响应在刷新时序列化一次，请求直接返回序列化好的字节；快照创建后不再修改
+ */
+@Getter
+public class HomeSnapshot {
+
+    /**
+     * 首页完整响应
+     */
+    private final Body index;
+
+    /**
+     * 模块类型 -> 模块响应
+     */
+    private final Map<String, Body> moduleBodies;
+
+    /**
+     * 模块类型 -> 模块数据
+     */
+    private final Map<String, Object> modules;
+
+    /**
+     * 模块内容的摘要，不含时间戳，内容不变时刷新不替换快照，首页响应和ETag保持不变
+     */
+    private final String contentHash;
+
+    private HomeSnapshot(Body index, Map<String, Body> moduleBodies, Map<String, Object> modules, String contentHash) {
+        this.index = index;
+        this.moduleBodies = moduleBodies;
+        this.modules = modules;
+        this.contentHash = contentHash;
+    }
+
+    /**
+     * 构建快照
+     *
+     * @param modules  模块类型 -> 模块数据
+     * @param dataKeys 模块类型 -> 首页响应中的字段名
+     */
+    public static HomeSnapshot of(ObjectMapper objectMapper, Map<String, Object> modules, Map<String, String> dataKeys) {
+        try {
+            Map<String, Object> homeData = new LinkedHashMap<>();
+            Map<String, Body> moduleBodies = new HashMap<>();
+            for (Map.Entry<String, Object> entry : modules.entrySet()) {
+                homeData.put(dataKeys.get(entry.getKey()), entry.getValue());
+                moduleBodies.put(entry.getKey(), Body.of(objectMapper.writeValueAsBytes(new Response<>(1001, entry.getValue()))));
+            }
+            String contentHash = DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(homeData));
+            homeData.put("timestamp", System.currentTimeMillis());
+            // 强ETag按实际返回的字节计算，包含时间戳
+            Body index = Body.of(objectMapper.writeValueAsBytes(new Response<>(1001, homeData)));
+            return new HomeSnapshot(index, Collections.unmodifiableMap(moduleBodies),
+                    Collections.unmodifiableMap(new HashMap<>(modules)), contentHash);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("序列化首页快照失败", e);
+        }
+    }
+
+    /**
+     * 序列化好的响应及其ETag
+     */
+    @Getter
+    public static class Body {
+        private final byte[] bytes;
+        private final String etag;
+
+        private Body(byte[] bytes, String etag) {
+            this.bytes = bytes;
+            this.etag = etag;
+        }
+
+        private static Body of(byte[] bytes) {
+            return new Body(bytes, etagOf(bytes));
+        }
+
+        private static String etagOf(byte[] bytes) {
+            return "\"" + DigestUtils.md5DigestAsHex(bytes) + "\"";
+        }
+    }
+}
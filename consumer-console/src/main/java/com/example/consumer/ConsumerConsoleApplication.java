@@ -1,14 +1,23 @@
 package com.example.consumer;
 
+import com.example.common.config.feign.FeignCodecConfig;
+import com.example.common.config.feign.FeignTransportConfig;
+import com.example.common.config.thread.BlockingExecutors;
+import com.example.common.config.thread.VirtualThreadPinningMonitor;
+import com.example.common.feign.AsyncFeignCaller;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @EnableFeignClients
 @SpringBootApplication(exclude = {
     org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration.class,
     org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration.class
 })
+@EnableScheduling
+@Import({FeignTransportConfig.class, FeignCodecConfig.class, BlockingExecutors.class, VirtualThreadPinningMonitor.class, AsyncFeignCaller.class})
 public class ConsumerConsoleApplication {
 
     public static void main(String[] args) {
@@ -2,10 +2,13 @@ package com.example.consumer.controller;
 
 import com.alibaba.fastjson.JSON;
 import com.example.common.annotations.VerifiedUser;
+import com.example.common.dto.IntroductionDTO;
 import com.example.common.dto.TypeListVO;
 import com.example.common.entity.Game;
+import com.example.common.entity.GameListDTO;
 import com.example.common.entity.Type;
 import com.example.common.entity.User;
+import com.example.common.feign.AsyncFeignCaller;
 import com.example.common.utils.BaseUtils;
 import com.example.common.utils.Response;
 import com.example.consumer.controller.domain.game.*;
@@ -18,6 +21,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import java.math.BigInteger;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @RestController
@@ -25,6 +29,8 @@ import java.util.*;
 public class ConsoleGameController {
     @Resource
     private ConsoleGameServiceFeign consoleGameServiceFeign;
+    @Resource
+    private AsyncFeignCaller asyncFeignCaller;
 
 
     @RequestMapping("/list")
@@ -36,9 +42,14 @@ public class ConsoleGameController {
             return new Response(1002, "用户未登录");
         }
         int pageSize = 10;
-        List<Game> gameList;
+        // 列表和总数互不依赖，同时请求
+        CompletableFuture<List<GameListDTO>> gameListFuture =
+                asyncFeignCaller.call(() -> consoleGameServiceFeign.gameListView(page, keyword, typeId));
+        CompletableFuture<Integer> totalFuture =
+                asyncFeignCaller.call(() -> consoleGameServiceFeign.getTotalCount(keyword, typeId));
+        List<GameListDTO> gameList;
         try {
-            gameList = consoleGameServiceFeign.gameList(page, keyword, typeId);
+            gameList = AsyncFeignCaller.join(gameListFuture);
 
             if (gameList == null) {
                 return new Response(4004, "游戏列表数据为空");
@@ -47,31 +58,11 @@ public class ConsoleGameController {
             log.error("获取游戏列表失败", e);
             return new Response(4004, "获取游戏列表失败");
         }
-        Integer total = consoleGameServiceFeign.getTotalCount(keyword);
+        Integer total = AsyncFeignCaller.join(totalFuture);
 
-        Set<BigInteger> gameIdSet = new HashSet<>();
-        Set<BigInteger> typeIdSet = new HashSet<>();
-        for (Game game : gameList) {
-            gameIdSet.add(game.getId());
-            BigInteger tid = game.getTypeId();
-            if (tid != null) {
-                typeIdSet.add(tid);
-            }
-        }
-        Map<BigInteger, String> typeMap = new HashMap<>();
-        if (!typeIdSet.isEmpty()) {
-            try {
-                List<Type> types = consoleGameServiceFeign.typeListByIds(typeIdSet);
-                for (Type type : types) {
-                    typeMap.put(type.getId(), type.getTypeName());
-                }
-            } catch (Exception e) {
-                log.info("获取类型信息失败: {}", e.getMessage(), e);
-            }
-        }
         List<GameListVO> gameVOList = new ArrayList<>();
-        for (Game game : gameList) {
-            String typeName = typeMap.get(game.getTypeId());
+        for (GameListDTO game : gameList) {
+            String typeName = game.getTypeName();
             String formattedCreateTime = BaseUtils.timeStamp2DateGMT(game.getCreateTime(), "yyyy-MM-dd HH:mm:ss");
             String formattedUpdateTime = BaseUtils.timeStamp2DateGMT(game.getUpdateTime(), "yyyy-MM-dd HH:mm:ss");
             GameListVO gameVO = new GameListVO()
@@ -113,7 +104,7 @@ public class ConsoleGameController {
                     .setCreateTime(BaseUtils.timeStamp2Date(game.getCreateTime()))
                     .setUpdateTime(BaseUtils.timeStamp2Date(game.getUpdateTime()));
             try {
-                List<BaseIntroductionVO> introductionList = JSON.parseArray(game.getGameIntroduction(), BaseIntroductionVO.class);
+                List<BaseIntroductionVO> introductionList = toIntroductionVOs(game);
                 gameInfo.setGameIntroduction(introductionList);
             } catch (Exception e) {
                 log.error("解析游戏介绍失败: {}", e.getMessage(), e);
@@ -357,4 +348,18 @@ public class ConsoleGameController {
 
         return typeTreeVO;
     }
+
+    /**
+     * 转换游戏介绍，优先使用provider已解析好的介绍，旧缓存数据中没有时再解析原文
+     */
+    private static List<BaseIntroductionVO> toIntroductionVOs(Game game) {
+        if (game.getIntroductionBlocks() == null) {
+            return JSON.parseArray(game.getGameIntroduction(), BaseIntroductionVO.class);
+        }
+        List<BaseIntroductionVO> result = new ArrayList<>(game.getIntroductionBlocks().size());
+        for (IntroductionDTO block : game.getIntroductionBlocks()) {
+            result.add(new BaseIntroductionVO().setType(block.getType()).setContent(block.getContent()));
+        }
+        return result;
+    }
 }
@@ -1,6 +1,8 @@
 package com.example.consumer.feign;
 
 import com.example.common.entity.Game;
+import com.example.common.entity.GameListDTO;
+import com.example.common.entity.Tag;
 import com.example.common.entity.Type;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -8,6 +10,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 
 import java.math.BigInteger;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -25,6 +28,16 @@ public interface ConsoleGameServiceFeign {
     Game gameInfo(
             @RequestParam(name = "gameId") BigInteger gameId);
 
+    /**
+     * 批量获取游戏详情
+     *
+     * @param gameIds 游戏ID列表，最多200个
+     * @return 游戏列表，按传入顺序排列，不存在的游戏不返回
+     */
+    @RequestMapping("/batchInfo")
+    List<Game> batchGameInfo(
+            @RequestParam(name = "gameIds") List<BigInteger> gameIds);
+
     /**
      * 获取游戏列表
      */
@@ -34,6 +47,38 @@ public interface ConsoleGameServiceFeign {
             @RequestParam(name = "keyword", required = false) String keyword,
             @RequestParam(name = "typeId", required = false) BigInteger typeI);
 
+    /**
+     * 获取游戏列表投影，包含类型名称
+     */
+    @RequestMapping("/listView")
+    List<GameListDTO> gameListView(
+            @RequestParam(name = "page", defaultValue = "1") Integer page,
+            @RequestParam(name = "keyword", required = false) String keyword,
+            @RequestParam(name = "typeId", required = false) BigInteger typeId);
+
+    /**
+     * 按ID游标获取游戏列表
+     *
+     * @param lastId   上一页最后一条游戏ID，首页传0
+     * @param pageSize 每页条数，最大100
+     */
+    @RequestMapping("/listAfter")
+    List<Game> gameListAfter(
+            @RequestParam(name = "lastId", defaultValue = "0") BigInteger lastId,
+            @RequestParam(name = "keyword", required = false) String keyword,
+            @RequestParam(name = "typeId", required = false) BigInteger typeId,
+            @RequestParam(name = "pageSize", defaultValue = "10") Integer pageSize);
+
+    /**
+     * 根据游戏id列表批量获取标签列表
+     *
+     * @param gameIds 游戏ID列表，最多200个
+     * @return 游戏ID -> 标签列表
+     */
+    @RequestMapping("/tagsByGameIds")
+    Map<BigInteger, List<Tag>> tagsByGameIds(
+            @RequestParam(name = "gameIds") List<BigInteger> gameIds);
+
     /**
      * 创建游戏
      */
@@ -79,11 +124,13 @@ public interface ConsoleGameServiceFeign {
      * 获取游戏总数
      *
      * @param keyword
+     * @param typeId
      * @return
      */
     @RequestMapping("/totalCount")
     Integer getTotalCount(
-            @RequestParam(name = "keyword", required = false) String keyword);
+            @RequestParam(name = "keyword", required = false) String keyword,
+            @RequestParam(name = "typeId", required = false) BigInteger typeId);
 
     /**
      * 获取类型列表
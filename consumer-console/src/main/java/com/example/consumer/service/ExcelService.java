@@ -2,18 +2,24 @@ package com.example.consumer.service;
 
 
 import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.ExcelWriter;
 import com.alibaba.excel.read.listener.PageReadListener;
+import com.alibaba.excel.write.metadata.WriteSheet;
+import com.example.common.config.thread.BlockingExecutors;
 import com.example.common.dto.GameExcelDTO;
 import com.example.common.dto.TagExcelDTO;
 import com.example.common.dto.TypeExcelDTO;
 import com.example.common.entity.Game;
+import com.example.common.entity.Tag;
 import com.example.common.entity.Type;
 import com.example.common.entity.User;
 import com.example.consumer.feign.ConsoleGameServiceFeign;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -24,11 +30,12 @@ import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -43,7 +50,23 @@ public class ExcelService {
     @Autowired
     private ConsoleGameServiceFeign gameService;
 
-    private final ExecutorService executorService = Executors.newFixedThreadPool(3);
+    @Autowired
+    private BlockingExecutors blockingExecutors;
+
+    /**
+     * 导出时与游戏表并行生成分类表Excel
+     */
+    private AsyncTaskExecutor executorService;
+
+    @PostConstruct
+    public void init() {
+        executorService = blockingExecutors.create("excel-export", 3);
+    }
+
+    /**
+     * 导出游戏数据时每次拉取的条数
+     */
+    private static final int EXPORT_PAGE_SIZE = 100;
 
     /**
      * 解析Excel文件 - 动态识别表头
@@ -176,8 +199,9 @@ public class ExcelService {
     }
 
     /**
-     * 多线程导出多个表的数据并打包成ZIP
-     * 使用CountDownLatch实现线程同步，等待所有Excel生成任务完成
+     * 导出多个表的数据并打包成ZIP
+     * 分类表在线程池中并行生成；游戏表按ID游标逐页写入同一个ExcelWriter，
+     * 写入的同时收集标签，标签表不再单独遍历一次
      */
     public void exportMultipleTablesAsZip(HttpServletResponse response, User loginUser, String keyword, BigInteger typeId) {
         try {
@@ -187,71 +211,30 @@ public class ExcelService {
             String fileName = URLEncoder.encode("数据导出", StandardCharsets.UTF_8).replaceAll("\\+", "%20");
             response.setHeader("Content-disposition", "attachment;filename*=utf-8''" + fileName + ".zip");
 
+            // 异步生成分类表Excel
+            Future<byte[]> typeExcel = executorService.submit(() -> generateTypeExcel(loginUser));
+
             try (ZipOutputStream zipOut = new ZipOutputStream(response.getOutputStream())) {
 
-                // 创建CountDownLatch，等待3个任务完成
-                CountDownLatch latch = new CountDownLatch(3);
-
-                // 用于存储各表的Excel数据
-                final byte[][] results = new byte[3][];
-
-                // 异步生成分类表Excel
-                executorService.submit(() -> {
-                    try {
-                        results[0] = generateTypeExcel(loginUser);
-                    } catch (Exception e) {
-                        log.error("生成分类Excel失败", e);
-                        results[0] = new byte[0];
-                    } finally {
-                        latch.countDown(); // 任务完成，计数器减1
-                    }
-                });
-
-                // 异步生成游戏表Excel
-                executorService.submit(() -> {
-                    try {
-                        results[1] = generateGameExcel(keyword, typeId);
-                    } catch (Exception e) {
-                        log.error("生成游戏Excel失败", e);
-                        results[1] = new byte[0];
-                    } finally {
-                        latch.countDown(); // 任务完成，计数器减1
-                    }
-                });
-
-                // 异步生成标签表Excel
-                executorService.submit(() -> {
-                    try {
-                        results[2] = generateTagExcel();
-                    } catch (Exception e) {
-                        log.error("生成标签Excel失败", e);
-                        results[2] = new byte[0];
-                    } finally {
-                        latch.countDown(); // 任务完成，计数器减1
-                    }
-                });
+                // 游戏表逐页写入ZIP，返回导出范围内去重后的标签
+                Map<BigInteger, Tag> tagMap = writeGameExcel(zipOut, keyword, typeId);
 
-                // 等待所有任务完成
-                latch.await();
+                // 添加标签表Excel到ZIP
+                zipOut.putNextEntry(new ZipEntry("标签表数据.xlsx"));
+                writeTagExcel(zipOut, tagMap);
+                zipOut.closeEntry();
 
                 // 添加分类表Excel到ZIP
-                if (results[0].length > 0) {
-                    zipOut.putNextEntry(new ZipEntry("分类表数据.xlsx"));
-                    zipOut.write(results[0]);
-                    zipOut.closeEntry();
+                byte[] typeBytes;
+                try {
+                    typeBytes = typeExcel.get();
+                } catch (ExecutionException e) {
+                    log.error("生成分类Excel失败", e.getCause());
+                    typeBytes = new byte[0];
                 }
-
-                // 添加游戏表Excel到ZIP
-                if (results[1].length > 0) {
-                    zipOut.putNextEntry(new ZipEntry("游戏表数据.xlsx"));
-                    zipOut.write(results[1]);
-                    zipOut.closeEntry();
-                }
-
-                // 添加标签表Excel到ZIP
-                if (results[2].length > 0) {
-                    zipOut.putNextEntry(new ZipEntry("标签表数据.xlsx"));
-                    zipOut.write(results[2]);
+                if (typeBytes.length > 0) {
+                    zipOut.putNextEntry(new ZipEntry("分类表数据.xlsx"));
+                    zipOut.write(typeBytes);
                     zipOut.closeEntry();
                 }
 
@@ -292,43 +275,76 @@ public class ExcelService {
     }
 
     /**
-     * 生成游戏表Excel字节数组
+     * 按ID游标逐页拉取游戏写入ZIP中的游戏表，内存中只保留当前页
+     * 没有游戏时不生成游戏表
+     *
+     * @return 导出范围内的游戏标签，按标签ID去重
      */
-    private byte[] generateGameExcel(String keyword, BigInteger typeId) throws IOException {
-        // 获取所有游戏数据，传入合适的分页参数
-
-        List<Game> GameList = gameService.gameList(1, keyword, typeId);
-
-        if (GameList == null) {
+    private Map<BigInteger, Tag> writeGameExcel(ZipOutputStream zipOut, String keyword, BigInteger typeId) throws IOException {
+        Map<BigInteger, Tag> tagMap = new LinkedHashMap<>();
+        List<Game> gameList = gameService.gameListAfter(BigInteger.ZERO, keyword, typeId, EXPORT_PAGE_SIZE);
+        if (gameList == null || gameList.isEmpty()) {
             log.warn("游戏列表数据为空");
-            return new byte[0];
-        }
-        List<GameExcelDTO> excelData = new ArrayList<>();
-
-        for (Game game : GameList) {
-            GameExcelDTO dto = new GameExcelDTO();
-            BeanUtils.copyProperties(game, dto);
-            excelData.add(dto);
+            return tagMap;
         }
 
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-            EasyExcel.write(outputStream, GameExcelDTO.class).sheet("游戏数据").doWrite(excelData);
-            return outputStream.toByteArray();
+        zipOut.putNextEntry(new ZipEntry("游戏表数据.xlsx"));
+        // ZIP流由调用方关闭，ExcelWriter结束时不关闭
+        ExcelWriter excelWriter = EasyExcel.write(zipOut, GameExcelDTO.class).autoCloseStream(false).build();
+        try {
+            WriteSheet writeSheet = EasyExcel.writerSheet("游戏数据").build();
+            while (true) {
+                // 每页的标签一次批量获取
+                Map<BigInteger, List<Tag>> pageTags = getTagMap(gameList);
+                List<GameExcelDTO> excelData = new ArrayList<>(gameList.size());
+                for (Game game : gameList) {
+                    GameExcelDTO dto = new GameExcelDTO();
+                    BeanUtils.copyProperties(game, dto);
+                    List<Tag> tags = pageTags.get(game.getId());
+                    if (tags != null) {
+                        dto.setTags(tags.stream().map(Tag::getName).collect(Collectors.joining(",")));
+                        for (Tag tag : tags) {
+                            tagMap.putIfAbsent(tag.getId(), tag);
+                        }
+                    }
+                    excelData.add(dto);
+                }
+                excelWriter.write(excelData, writeSheet);
+                if (gameList.size() < EXPORT_PAGE_SIZE) {
+                    break;
+                }
+                BigInteger lastId = gameList.get(gameList.size() - 1).getId();
+                gameList = gameService.gameListAfter(lastId, keyword, typeId, EXPORT_PAGE_SIZE);
+                if (gameList == null || gameList.isEmpty()) {
+                    break;
+                }
+            }
+        } finally {
+            excelWriter.finish();
         }
+        zipOut.closeEntry();
+        return tagMap;
     }
 
     /**
-     * 生成标签表Excel字节数组
-     * 注意：由于标签数据通过GameController获取，这里暂时生成空的Excel文件
-     * 实际项目中可以通过获取所有游戏数据，然后提取其中的标签信息来实现
+     * 将游戏表收集到的标签写入ZIP中的标签表
      */
-    private byte[] generateTagExcel() throws IOException {
-        // 创建空的标签数据列表
+    private void writeTagExcel(ZipOutputStream zipOut, Map<BigInteger, Tag> tagMap) {
         List<TagExcelDTO> excelData = new ArrayList<>();
-
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-            EasyExcel.write(outputStream, TagExcelDTO.class).sheet("标签数据").doWrite(excelData);
-            return outputStream.toByteArray();
+        for (Tag tag : tagMap.values()) {
+            TagExcelDTO dto = new TagExcelDTO();
+            BeanUtils.copyProperties(tag, dto);
+            excelData.add(dto);
         }
+        EasyExcel.write(zipOut, TagExcelDTO.class).autoCloseStream(false).sheet("标签数据").doWrite(excelData);
+    }
+
+    /**
+     * 批量获取一页游戏的标签
+     */
+    private Map<BigInteger, List<Tag>> getTagMap(List<Game> gameList) {
+        List<BigInteger> gameIds = gameList.stream().map(Game::getId).collect(Collectors.toList());
+        Map<BigInteger, List<Tag>> tagMap = gameService.tagsByGameIds(gameIds);
+        return tagMap == null ? new HashMap<>() : tagMap;
     }
-}
\ No newline at end of file
+}
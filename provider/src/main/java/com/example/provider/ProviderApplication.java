@@ -1,13 +1,19 @@
 package com.example.provider;
 
+import com.example.common.config.thread.BlockingExecutors;
+import com.example.common.config.thread.VirtualThreadPinningMonitor;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 
 @SpringBootApplication
 @MapperScan("com.example.provider.mapper")
+@EnableScheduling
+@Import({BlockingExecutors.class, VirtualThreadPinningMonitor.class})
 public class ProviderApplication {
 
     public static void main(String[] args) {
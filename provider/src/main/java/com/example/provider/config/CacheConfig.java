@@ -0,0 +1,91 @@
+package com.example.provider.config;
+
+import com.example.common.cache.CacheNames;
+import com.example.common.cache.TwoLevelCache;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.time.Duration;
+
+/**
+ * 二级缓存配置
+ * 一级为本地Caffeine缓存，二级为Redis，失效消息通过Redis发布订阅广播
+ */
+@Configuration
+public class CacheConfig {
+
+    /**
+     * 一级缓存最大条数
+     */
+    @Value("${cache.local.max-size:10000}")
+    private long localMaxSize;
+
+    /**
+     * 一级缓存过期时间(ms)，用于兜底丢失的失效消息
+     */
+    @Value("${cache.local.ttl:60000}")
+    private long localTtl;
+
+    /**
+     * 二级缓存过期时间(ms)
+     */
+    @Value("${cache.redis.ttl:1800000}")
+    private long redisTtl;
+
+    /**
+     * 二级缓存使用的RedisTemplate
+     * 不开启事务支持，缓存失效在事务提交后执行，需要立即生效
+     */
+    @Bean(name = "cacheRedisTemplate")
+    public RedisTemplate<String, Object> cacheRedisTemplate(RedisConnectionFactory connectionFactory,
+                                                            @Qualifier("redisValueSerializer") RedisSerializer<Object> valueSerializer) {
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        StringRedisSerializer stringSerializer = new StringRedisSerializer();
+        template.setKeySerializer(stringSerializer);
+        template.setHashKeySerializer(stringSerializer);
+        template.setValueSerializer(valueSerializer);
+        template.setHashValueSerializer(valueSerializer);
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    /**
+     * 游戏详情缓存，键为游戏ID
+     */
+    @Bean(name = "gameDetailStore")
+    public TwoLevelCache gameDetailStore(@Qualifier("cacheRedisTemplate") RedisTemplate<String, Object> cacheRedisTemplate,
+                                         RedisMessageListenerContainer container) {
+        return create(CacheNames.GAME_DETAIL, cacheRedisTemplate, container);
+    }
+
+    /**
+     * 游戏标签ID缓存，键为游戏ID
+     */
+    @Bean(name = "gameTagIdsStore")
+    public TwoLevelCache gameTagIdsStore(@Qualifier("cacheRedisTemplate") RedisTemplate<String, Object> cacheRedisTemplate,
+                                         RedisMessageListenerContainer container) {
+        return create(CacheNames.GAME_TAG_IDS, cacheRedisTemplate, container);
+    }
+
+    /**
+     * 类型列表缓存，类型树快照从这里加载
+     */
+    @Bean(name = "typeStore")
+    public TwoLevelCache typeStore(@Qualifier("cacheRedisTemplate") RedisTemplate<String, Object> cacheRedisTemplate,
+                                   RedisMessageListenerContainer container) {
+        return create(CacheNames.TYPE, cacheRedisTemplate, container);
+    }
+
+    private TwoLevelCache create(String name, RedisTemplate<String, Object> redisTemplate, RedisMessageListenerContainer container) {
+        return new TwoLevelCache(name, redisTemplate, container, localMaxSize,
+                Duration.ofMillis(localTtl), Duration.ofMillis(redisTtl));
+    }
+}
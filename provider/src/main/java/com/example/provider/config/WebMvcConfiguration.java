@@ -3,12 +3,16 @@ package com.example.provider.config;
 import com.example.common.annotations.VerifiedUser;
 import com.example.common.entity.User;
 import com.example.provider.service.user.AuthService;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import jakarta.annotation.Resource;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.MethodParameter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.web.bind.support.WebDataBinderFactory;
 import org.springframework.web.context.request.NativeWebRequest;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
@@ -21,6 +25,7 @@ import java.util.List;
 /**
  * Provider端Web MVC配置
  * 配置参数解析器处理@VerifiedUser注解，接收Consumer端传递的用户信息
+ * 注册Smile消息转换器，请求头Accept为application/x-jackson-smile时以Smile二进制返回，否则仍返回JSON
  */
 @Configuration
 public class WebMvcConfiguration implements WebMvcConfigurer {
@@ -28,6 +33,19 @@ public class WebMvcConfiguration implements WebMvcConfigurer {
     @Resource
     private AuthService authService;
 
+    @Resource
+    private Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder;
+
+    /**
+     * 添加Smile消息转换器，使用与JSON相同的ObjectMapper配置
+     * 放在JSON之后，未指定Accept的调用方仍得到JSON
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new MappingJackson2SmileHttpMessageConverter(
+                jackson2ObjectMapperBuilder.factory(new SmileFactory()).build()));
+    }
+
     @Override
     public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
         resolvers.add(new ProviderUserAuthorityResolver(authService));
@@ -1,21 +1,30 @@
 package com.example.provider.controller.game;
 
+import com.example.common.dto.GameDetailDTO;
 import com.example.common.entity.Game;
+import com.example.common.entity.GameListDTO;
 import com.example.common.entity.Tag;
+import com.example.provider.service.game.GameListCache;
 import com.example.provider.service.game.GameService;
+import com.example.provider.service.game.GameTagIndex;
+import com.example.provider.service.game.ImageMetaBackfill;
 import com.example.provider.service.game.TagService;
 import com.example.provider.service.game.TypeService;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigInteger;
-import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -33,7 +42,10 @@ public class GameController {
     private TagService tagService;
 
     @Resource
-    private RedisTemplate<String, Object> redisTemplate;
+    private GameListCache gameListCache;
+
+    @Resource
+    private ImageMetaBackfill imageMetaBackfill;
 
     /**
      * 获取游戏详情
@@ -53,6 +65,45 @@ public class GameController {
         return game;
     }
 
+    /**
+     * 获取游戏详情，同时返回类型和标签
+     * 三部分都优先从缓存读取，供详情页一次调用完成
+     */
+    @RequestMapping("/detail")
+    public GameDetailDTO gameDetail(@RequestParam(name = "gameId") BigInteger gameId) {
+        GameDetailDTO detail;
+        try {
+            detail = gameService.getDetail(gameId);
+        } catch (Exception e) {
+            throw new RuntimeException("获取游戏信息失败");
+        }
+        if (detail == null) {
+            throw new RuntimeException("未找到游戏信息");
+        }
+        return detail;
+    }
+
+    /**
+     * 批量获取游戏详情
+     *
+     * @param gameIds 游戏ID列表，最多200个
+     * @return 游戏列表，按传入顺序排列，不存在的游戏不返回
+     */
+    @RequestMapping("/batchInfo")
+    public List<Game> batchGameInfo(@RequestParam(name = "gameIds") List<BigInteger> gameIds) {
+        if (gameIds == null || gameIds.isEmpty()) {
+            throw new RuntimeException("游戏ID不能为空");
+        }
+        if (gameIds.size() > 200) {
+            throw new RuntimeException("游戏ID数量不能超过200");
+        }
+        try {
+            return gameService.getByIds(gameIds);
+        } catch (Exception e) {
+            throw new RuntimeException("获取游戏信息失败");
+        }
+    }
+
     /**
      * 获取游戏列表
      */
@@ -60,14 +111,49 @@ public class GameController {
     public List<Game> gameList(
             @RequestParam(name = "keyword", required = false) String keyword,
             @RequestParam(name = "typeId", required = false) BigInteger typeId,
-            @RequestParam(name = "page", defaultValue = "1") Integer page) {
+            @RequestParam(name = "page", defaultValue = "1") Integer page,
+            @RequestParam(name = "tagIds", required = false) List<BigInteger> tagIds,
+            @RequestParam(name = "tagMode", defaultValue = "any") String tagMode) {
 
         int pageSize = 10;
 
+        if (!GameTagIndex.MODE_ANY.equals(tagMode) && !GameTagIndex.MODE_ALL.equals(tagMode)) {
+            throw new RuntimeException("tagMode 只能为any或all");
+        }
+
         // 获取游戏列表
         List<Game> gameList;
         try {
-            gameList = gameService.getAllGame(page, pageSize, keyword, typeId);
+            if (tagIds != null && !tagIds.isEmpty()) {
+                gameList = gameService.getAllGameByTags(page, pageSize, keyword, typeId, tagIds, tagMode);
+            } else {
+                gameList = gameService.getAllGame(page, pageSize, keyword, typeId);
+            }
+        } catch (Exception e) {
+            log.error("获取游戏列表失败: {}", e.getMessage(), e);
+            throw new RuntimeException("获取游戏列表失败");
+        }
+        return gameList;
+    }
+
+    /**
+     * 按ID游标获取游戏列表
+     * 返回id大于lastId的下一页，翻到第N页与第一页开销相同
+     */
+    @RequestMapping("/listAfter")
+    public List<Game> gameListAfter(
+            @RequestParam(name = "keyword", required = false) String keyword,
+            @RequestParam(name = "typeId", required = false) BigInteger typeId,
+            @RequestParam(name = "lastId", defaultValue = "0") BigInteger lastId,
+            @RequestParam(name = "pageSize", defaultValue = "10") Integer pageSize) {
+
+        if (pageSize <= 0 || pageSize > 100) {
+            throw new RuntimeException("pageSize 超出范围");
+        }
+
+        List<Game> gameList;
+        try {
+            gameList = gameService.getAllGameAfterId(lastId, pageSize, keyword, typeId);
         } catch (Exception e) {
             log.error("获取游戏列表失败: {}", e.getMessage(), e);
             throw new RuntimeException("获取游戏列表失败");
@@ -75,31 +161,83 @@ public class GameController {
         return gameList;
     }
 
+    /**
+     * 获取游戏列表投影
+     * 只返回列表展示需要的字段(id、名称、封面、类型ID、类型名称等)，列表页无需再查询类型
+     */
+    @RequestMapping("/listView")
+    public List<GameListDTO> gameListView(
+            @RequestParam(name = "keyword", required = false) String keyword,
+            @RequestParam(name = "typeId", required = false) BigInteger typeId,
+            @RequestParam(name = "page", defaultValue = "1") Integer page,
+            @RequestParam(name = "tagIds", required = false) List<BigInteger> tagIds,
+            @RequestParam(name = "tagMode", defaultValue = "any") String tagMode) {
+
+        int pageSize = 10;
+
+        if (!GameTagIndex.MODE_ANY.equals(tagMode) && !GameTagIndex.MODE_ALL.equals(tagMode)) {
+            throw new RuntimeException("tagMode 只能为any或all");
+        }
+
+        try {
+            return gameService.getGameList(page, pageSize, keyword, typeId, tagIds, tagMode);
+        } catch (Exception e) {
+            log.error("获取游戏列表失败: {}", e.getMessage(), e);
+            throw new RuntimeException("获取游戏列表失败");
+        }
+    }
+
+    /**
+     * 按ID游标获取游戏列表投影
+     */
+    @RequestMapping("/listViewAfter")
+    public List<GameListDTO> gameListViewAfter(
+            @RequestParam(name = "keyword", required = false) String keyword,
+            @RequestParam(name = "typeId", required = false) BigInteger typeId,
+            @RequestParam(name = "lastId", defaultValue = "0") BigInteger lastId,
+            @RequestParam(name = "pageSize", defaultValue = "10") Integer pageSize) {
+
+        if (pageSize <= 0 || pageSize > 100) {
+            throw new RuntimeException("pageSize 超出范围");
+        }
+
+        try {
+            return gameService.getGameListAfterId(lastId, pageSize, keyword, typeId);
+        } catch (Exception e) {
+            log.error("获取游戏列表失败: {}", e.getMessage(), e);
+            throw new RuntimeException("获取游戏列表失败");
+        }
+    }
+
     /**
      * 从缓存中获取游戏列表
+     * 返回null表示调用方需要重建并写回，其他请求正在重建且没有旧值时返回503
      */
     @RequestMapping("/listFromRedis")
-    public Object appGameList(
+    public CompletableFuture<Object> appGameList(
             @RequestParam(name = "keyword", required = false) String keyword,
             @RequestParam(name = "typeId", required = false) BigInteger typeId,
-            @RequestParam(name = "currentPage", required = false) Integer currentPage) {
-        // 构建缓存键: game_list-关键词-typeId-page
-        String cacheKey = "game_list-" +
-                (keyword != null ? keyword : "") + "-" +
-                (typeId != null ? typeId.toString() : "") + "-" +
-                currentPage;
-
-        // 尝试从缓存获取数据
+            @RequestParam(name = "currentPage", required = false) Integer currentPage,
+            @RequestParam(name = "lastId", required = false) BigInteger lastId) {
+        String cacheKey = GameListCache.buildKey(keyword, typeId, currentPage, lastId);
+
+        CompletableFuture<Object> cachedResult;
         try {
-            Object cachedResult = redisTemplate.opsForValue().get(cacheKey);
-            if (cachedResult != null) {
-                log.info("从缓存获取游戏列表数据，缓存键: {}", cacheKey);
-                return cachedResult;
-            }
+            cachedResult = gameListCache.get(keyword, typeId, currentPage, lastId);
         } catch (Exception e) {
             log.info("从缓存获取数据失败: {}", e.getMessage());
+            return CompletableFuture.completedFuture(null);
         }
-        return null;
+        return cachedResult.thenApply(result -> {
+            if (result == GameListCache.BUSY) {
+                log.info("游戏列表正在重建，缓存键: {}", cacheKey);
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "游戏列表正在重建");
+            }
+            if (result != null) {
+                log.info("从缓存获取游戏列表数据，缓存键: {}", cacheKey);
+            }
+            return result;
+        });
     }
 
     /**
@@ -107,10 +245,17 @@ public class GameController {
      */
     @RequestMapping("/listIntoRedis")
     public void listIntoRedis(
-            @RequestParam(name = "cacheKey", required = false) String cacheKey,
-            @RequestParam(name = "result", required = false) Object result) {
+            @RequestParam(name = "keyword", required = false) String keyword,
+            @RequestParam(name = "typeId", required = false) BigInteger typeId,
+            @RequestParam(name = "currentPage", required = false) Integer currentPage,
+            @RequestParam(name = "lastId", required = false) BigInteger lastId,
+            @RequestBody(required = false) Object result) {
+        if (result == null) {
+            return;
+        }
+        String cacheKey = GameListCache.buildKey(keyword, typeId, currentPage, lastId);
         try {
-            redisTemplate.opsForValue().set(cacheKey, result, Duration.ofMinutes(30));
+            gameListCache.put(keyword, typeId, currentPage, lastId, result);
             log.info("游戏列表数据已存入缓存，缓存键: {}", cacheKey);
         } catch (Exception e) {
             log.info("存储缓存失败: {}", e.getMessage());
@@ -281,12 +426,14 @@ public class GameController {
      * 获取游戏条数
      *
      * @param keyword
+     * @param typeId
      * @return
      */
     @RequestMapping("/totalCount")
-    public Integer getTotalCount(@RequestParam(name = "keyword", required = false) String keyword) {
+    public Integer getTotalCount(@RequestParam(name = "keyword", required = false) String keyword,
+                                 @RequestParam(name = "typeId", required = false) BigInteger typeId) {
         try {
-            return gameService.getTotalCount(keyword);
+            return gameService.getTotalCount(keyword, typeId);
         } catch (Exception e) {
             throw new RuntimeException("获取游戏条数失败");
         }
@@ -310,5 +457,47 @@ public class GameController {
         }
     }
 
+    /**
+     * 根据游戏id列表批量获取标签列表
+     *
+     * @param gameIds 游戏ID列表，最多200个
+     * @return 游戏ID -> 标签列表
+     */
+    @RequestMapping("/tagsByGameIds")
+    public Map<BigInteger, List<Tag>> getTagsByGameIds(@RequestParam(name = "gameIds") List<BigInteger> gameIds) {
+        if (gameIds == null || gameIds.isEmpty()) {
+            throw new RuntimeException("游戏ID不能为空");
+        }
+        if (gameIds.size() > 200) {
+            throw new RuntimeException("游戏ID数量不能超过200");
+        }
+        try {
+            return tagService.getTagsByGameIds(gameIds);
+        } catch (Exception e) {
+            throw new RuntimeException("获取标签列表失败");
+        }
+    }
+
+    /**
+     * 在后台启动历史游戏封面和图片元数据的回填，会写入数据库，只接受POST
+     * 任务已在执行时不重复启动，直接返回当前进度
+     *
+     * @param batchSize 每批处理的游戏数，1-1000
+     * @return 回填进度
+     */
+    @PostMapping("/imageMeta/backfill")
+    public ImageMetaBackfill.Progress backfillImageMeta(@RequestParam(name = "batchSize", defaultValue = "500") Integer batchSize) {
+        if (batchSize < 1 || batchSize > 1000) {
+            throw new RuntimeException("batchSize需在1-1000之间");
+        }
+        return imageMetaBackfill.start(batchSize);
+    }
 
-}
\ No newline at end of file
+    /**
+     * 查询本实例回填任务的进度
+     */
+    @RequestMapping("/imageMeta/backfill/progress")
+    public ImageMetaBackfill.Progress backfillImageMetaProgress() {
+        return imageMetaBackfill.getProgress();
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.provider.controller.game;
 
+import com.example.common.dto.TypeChildrenDTO;
 import com.example.common.entity.Game;
 import com.example.common.entity.Type;
 import com.example.provider.service.game.GameService;
@@ -11,6 +12,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -75,6 +77,62 @@ public class TypeController {
         return result;
     }
 
+    /**
+     * 批量获取多个类型的子类型列表和游戏预览
+     * 子类型来自内存快照，游戏预览一次查询取回，替代逐个调用 childrenList
+     *
+     * @param parentIds 父类型ID列表，为空时取前limit个类型
+     * @param limit     未指定父类型时返回的类型数量
+     * @param gameLimit 每个类型返回的游戏数量，0表示不返回游戏
+     */
+    @RequestMapping("/childrenListByParentIds")
+    public List<TypeChildrenDTO> childrenListByParentIds(
+            @RequestParam(name = "parentIds", required = false) List<BigInteger> parentIds,
+            @RequestParam(name = "limit", defaultValue = "8") Integer limit,
+            @RequestParam(name = "gameLimit", defaultValue = "0") Integer gameLimit) {
+        if (gameLimit < 0 || gameLimit > 20) {
+            throw new RuntimeException("gameLimit 取值范围为0-20");
+        }
+
+        List<Type> parents = new ArrayList<>();
+        try {
+            if (parentIds == null || parentIds.isEmpty()) {
+                List<Type> allTypes = typeService.getAllType(null);
+                parents.addAll(allTypes.subList(0, Math.min(Math.max(limit, 0), allTypes.size())));
+            } else {
+                for (BigInteger parentId : parentIds) {
+                    Type type = typeService.getById(parentId);
+                    if (type != null) {
+                        parents.add(type);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("获取类型列表失败");
+        }
+
+        // 一次查询取回所有类型的游戏预览
+        Map<BigInteger, List<Game>> gameMap;
+        try {
+            List<BigInteger> typeIds = new ArrayList<>();
+            for (Type parent : parents) {
+                typeIds.add(parent.getId());
+            }
+            gameMap = gameService.getTopGamesByTypeIds(typeIds, gameLimit);
+        } catch (Exception e) {
+            throw new RuntimeException("获取游戏列表失败");
+        }
+
+        List<TypeChildrenDTO> result = new ArrayList<>();
+        for (Type parent : parents) {
+            result.add(new TypeChildrenDTO()
+                    .setType(parent)
+                    .setChildrenList(typeService.getChildrenList(parent.getId()))
+                    .setGameList(gameMap.getOrDefault(parent.getId(), new ArrayList<>())));
+        }
+        return result;
+    }
+
     /**
      * 获取类型详情
      */
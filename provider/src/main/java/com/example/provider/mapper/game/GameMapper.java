@@ -1,11 +1,17 @@
 package com.example.provider.mapper.game;
 
 
+import com.example.common.dto.TypeCountDTO;
 import com.example.common.entity.Game;
+import com.example.common.entity.GameListDTO;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
 
 import java.math.BigInteger;
 import java.util.List;
@@ -22,18 +28,61 @@ public interface GameMapper  {
 
     int update(@Param("game") Game game);
 
-    @Update("update game set is_deleted = 1, update_time=#{time} wBhere id = #{id} limit 1")
+    @Update("update game set is_deleted = 1, update_time=#{time} where id = #{id} and is_deleted = 0 limit 1")
     int delete(@Param("id") BigInteger id, @Param("time") Integer time);
 
 
-    List<Game> getAll(@Param("offset") Integer offset, @Param("pageSize") Integer pageSize , @Param("keyword") String keyword, @Param("typeId") BigInteger typeId, @Param("ids") String ids);
+    List<Game> getAll(@Param("offset") Integer offset, @Param("pageSize") Integer pageSize , @Param("keyword") String keyword, @Param("typeId") BigInteger typeId, @Param("typeIds") List<BigInteger> typeIds);
+
+    List<Game> getAllAfterId(@Param("lastId") BigInteger lastId, @Param("pageSize") Integer pageSize, @Param("keyword") String keyword, @Param("typeId") BigInteger typeId, @Param("typeIds") List<BigInteger> typeIds);
+
+    List<Game> getByIds(@Param("ids") List<BigInteger> ids);
+
+    List<GameListDTO> getListAll(@Param("offset") Integer offset, @Param("pageSize") Integer pageSize, @Param("keyword") String keyword, @Param("typeId") BigInteger typeId, @Param("typeIds") List<BigInteger> typeIds);
+
+    List<GameListDTO> getListAfterId(@Param("lastId") BigInteger lastId, @Param("pageSize") Integer pageSize, @Param("keyword") String keyword, @Param("typeId") BigInteger typeId, @Param("typeIds") List<BigInteger> typeIds);
+
+    List<GameListDTO> getListByIds(@Param("ids") List<BigInteger> ids);
+
+    /**
+     * 按标签筛选游戏ID，标签索引未就绪时使用
+     *
+     * @param tagIds   标签ID列表，不能重复
+     * @param matchAll true-包含全部标签 false-包含任一标签
+     */
+    List<BigInteger> getIdsByTags(@Param("offset") Integer offset, @Param("pageSize") Integer pageSize, @Param("keyword") String keyword, @Param("typeId") BigInteger typeId, @Param("typeIds") List<BigInteger> typeIds,
+                                  @Param("tagIds") List<BigInteger> tagIds, @Param("matchAll") boolean matchAll);
+
+    List<Game> getTopGamesByTypeIds(@Param("typeIds") List<BigInteger> typeIds, @Param("limit") Integer limit);
+
+    /**
+     * 流式扫描全部有效游戏，用于构建搜索索引
+     */
+    @Select("SELECT id, game_name, type_id FROM game WHERE is_deleted = 0")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    @ResultType(Game.class)
+    void scanIndexEntries(ResultHandler<Game> handler);
 
     @Select("select * from game where type_id = #{typeId}")
     List<Game> getAllGameByTypeId(@Param("typeId") BigInteger typeId);
 
-    int getTotalCount(@Param("keyword") String keyword);
+    int getTotalCount(@Param("keyword") String keyword, @Param("typeId") BigInteger typeId, @Param("typeIds") List<BigInteger> typeIds);
+
+    /**
+     * 按类型分组统计有效游戏数量
+     */
+    @Select("SELECT type_id, COUNT(*) AS total FROM game WHERE is_deleted = 0 GROUP BY type_id")
+    List<TypeCountDTO> countGroupByType();
 
     @Select("SELECT id from game where type_id = #{type_id} and is_deleted = 0")
     List<BigInteger> isExistByTypeId(@Param("type_id") BigInteger type_id);
 
+    /**
+     * 按id顺序读取一批尚未计算图片元数据的游戏，用于回填
+     */
+    @Select("SELECT id, images FROM game WHERE id > #{lastId} AND cover IS NULL AND images IS NOT NULL AND images != '' ORDER BY id LIMIT #{limit}")
+    List<Game> getWithoutImageMeta(@Param("lastId") BigInteger lastId, @Param("limit") Integer limit);
+
+    @Update("UPDATE game SET cover = #{game.cover}, cover_width = #{game.coverWidth}, cover_height = #{game.coverHeight}, image_meta = #{game.imageMeta} WHERE id = #{game.id}")
+    int updateImageMeta(@Param("game") Game game);
 }
@@ -3,9 +3,13 @@ package com.example.provider.mapper.game;
 
 import com.example.common.entity.GameTagRelation;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
 
 import java.math.BigInteger;
 import java.util.List;
@@ -31,11 +35,40 @@ public interface GameTagRelationMapper {
     @Select("SELECT tag_id FROM game_tag_relation WHERE game_id = #{gameId} AND is_deleted = 0")
     List<BigInteger> getTagIdsByGameId(BigInteger gameId);
 
+    /**
+     * 根据游戏ID列表查询关联关系
+     */
+    List<GameTagRelation> getByGameIds(@Param("gameIds") List<BigInteger> gameIds);
+
+    /**
+     * 流式扫描有效游戏的全部标签关联，用于构建标签位图索引
+     */
+    @Select("SELECT r.game_id, r.tag_id FROM game_tag_relation r " +
+            "INNER JOIN game g ON g.id = r.game_id AND g.is_deleted = 0 " +
+            "WHERE r.is_deleted = 0")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    @ResultType(GameTagRelation.class)
+    void scanLiveRelations(ResultHandler<GameTagRelation> handler);
+
     /**
      * 新增游戏标签关联
      */
     int insert(GameTagRelation relation);
 
+    /**
+     * 批量恢复已逻辑删除的游戏标签关联，每个标签最多恢复一条
+     */
+    int batchRestore(@Param("gameId") BigInteger gameId,
+                     @Param("tagIds") List<BigInteger> tagIds,
+                     @Param("time") Integer time);
+
+    /**
+     * 批量新增游戏标签关联，调用方需先排除已存在的关联
+     */
+    int batchInsert(@Param("gameId") BigInteger gameId,
+                    @Param("tagIds") List<BigInteger> tagIds,
+                    @Param("time") Integer time);
+
     /**
      * 批量逻辑删除游戏标签关联（根据游戏ID和不在标签ID列表中的记录）
      */
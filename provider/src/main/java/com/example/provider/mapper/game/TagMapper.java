@@ -29,9 +29,19 @@ public interface TagMapper {
      */
     List<Tag> getByIds(@Param("tagIds") List<BigInteger> tagIds);
 
+    /**
+     * 根据标签名称列表查询标签
+     */
+    List<Tag> getByNames(@Param("names") List<String> names);
+
     // 插入记录
     int insert(@Param("tag") Tag tag);
 
+    /**
+     * 批量插入标签，调用方需先排除已存在的名称
+     */
+    int batchInsertByNames(@Param("names") List<String> names, @Param("time") Integer time);
+
     // 更新记录
     int update(@Param("tag") Tag tag);
 
@@ -0,0 +1,250 @@
+package com.example.provider.service.game;
+
+import com.example.common.annotations.DataSource;
+import com.example.common.config.mysql.DataSourceType;
+import com.example.common.dto.TypeCountDTO;
+import com.example.common.entity.Game;
+import com.example.provider.mapper.game.GameMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 游戏数量统计
+ * 总数和各类型数量常驻内存，写入时增量更新，定时与从库校准；
+ * 带关键词的数量按TTL缓存，任何写入都会清空
+ */
+@Slf4j
+@Component
+public class GameCounter {
+
+    /**
+     * 关键词数量缓存的最大条数，超过后整体清空
+     */
+    private static final int MAX_KEYWORD_ENTRIES = 1000;
+
+    @Resource
+    private GameMapper mapper;
+    @Resource
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * 校准用的只读事务，统计和逐条核对在同一个快照中读取
+     */
+    private TransactionTemplate snapshotTemplate;
+
+    @Value("${game.count.keyword-ttl:30000}")
+    private long keywordTtl;
+
+    private final AtomicInteger total = new AtomicInteger();
+    private final Map<BigInteger, AtomicInteger> byType = new ConcurrentHashMap<>();
+    private final Map<String, KeywordCount> keywordCounts = new ConcurrentHashMap<>();
+
+    private volatile boolean ready = false;
+
+    /**
+     * 校准扫描期间本实例写入的游戏及写入后的状态，未在校准时为null
+     * 这些游戏在快照中的状态单独查询，用写入后的状态替换，不论写入提交在快照之前还是之后都只计一次
+     */
+    private Map<BigInteger, GameState> scanStates;
+
+    @PostConstruct
+    public void init() {
+        snapshotTemplate = new TransactionTemplate(transactionManager);
+        snapshotTemplate.setReadOnly(true);
+        snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 获取游戏数量
+     *
+     * @param typeId 类型ID，为空时返回总数
+     */
+    public int count(BigInteger typeId) {
+        if (typeId == null) {
+            return total.get();
+        }
+        AtomicInteger count = byType.get(typeId);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * 获取带关键词的游戏数量，缓存未命中或过期时调用loader计算
+     */
+    public int countByKeyword(String keyword, BigInteger typeId, Supplier<Integer> loader) {
+        String key = keyword + "-" + (typeId != null ? typeId.toString() : "");
+        long now = System.currentTimeMillis();
+        KeywordCount cached = keywordCounts.get(key);
+        if (cached != null && cached.expireTime() > now) {
+            return cached.count();
+        }
+        int count = loader.get();
+        if (keywordCounts.size() >= MAX_KEYWORD_ENTRIES) {
+            keywordCounts.clear();
+        }
+        keywordCounts.put(key, new KeywordCount(count, now + keywordTtl));
+        return count;
+    }
+
+    /**
+     * 新增游戏
+     */
+    public synchronized void increment(BigInteger gameId, BigInteger typeId) {
+        add(typeId, 1, true);
+        record(gameId, new GameState(true, typeId));
+        keywordCounts.clear();
+    }
+
+    /**
+     * 删除游戏
+     */
+    public synchronized void decrement(BigInteger gameId, BigInteger typeId) {
+        add(typeId, -1, true);
+        record(gameId, new GameState(false, null));
+        keywordCounts.clear();
+    }
+
+    /**
+     * 游戏更换类型
+     */
+    public synchronized void move(BigInteger gameId, BigInteger oldTypeId, BigInteger newTypeId) {
+        add(oldTypeId, -1, false);
+        add(newTypeId, 1, false);
+        record(gameId, new GameState(true, newTypeId));
+        keywordCounts.clear();
+    }
+
+    private void add(BigInteger typeId, int delta, boolean countTotal) {
+        if (countTotal) {
+            total.addAndGet(delta);
+        }
+        if (typeId != null) {
+            byType.computeIfAbsent(typeId, k -> new AtomicInteger()).addAndGet(delta);
+        }
+    }
+
+    private void record(BigInteger gameId, GameState state) {
+        if (scanStates != null && gameId != null) {
+            scanStates.put(gameId, state);
+        }
+    }
+
+    /**
+     * 游戏名称变化后关键词数量需要重新计算
+     */
+    public void clearKeywordCounts() {
+        keywordCounts.clear();
+    }
+
+    /**
+     * 与从库校准
+     * 启动时执行一次，之后定时执行，同时用于同步其他实例的写入；
+     * 扫描期间本实例写入的游戏在同一快照中逐条核对，用写入后的状态替换快照中的状态，
+     * 从库延迟或写入与快照的先后顺序都不会造成重复计数
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${game.count.reconcile-interval:300000}")
+    @DataSource(DataSourceType.SLAVE)
+    public void reconcile() {
+        synchronized (this) {
+            scanStates = new HashMap<>();
+        }
+        try {
+            snapshotTemplate.executeWithoutResult(status -> {
+                int sum = 0;
+                Map<BigInteger, Integer> counts = new HashMap<>();
+                for (TypeCountDTO typeCount : mapper.countGroupByType()) {
+                    sum += typeCount.getTotal();
+                    if (typeCount.getTypeId() != null) {
+                        counts.put(typeCount.getTypeId(), typeCount.getTotal());
+                    }
+                }
+                Map<BigInteger, GameState> snapshotStates = new HashMap<>();
+                while (true) {
+                    List<BigInteger> pending = new ArrayList<>();
+                    synchronized (this) {
+                        for (BigInteger gameId : scanStates.keySet()) {
+                            if (!snapshotStates.containsKey(gameId)) {
+                                pending.add(gameId);
+                            }
+                        }
+                        if (pending.isEmpty()) {
+                            apply(sum, counts, snapshotStates);
+                            return;
+                        }
+                    }
+                    // 快照中不存在或已删除的游戏视为未计入
+                    for (BigInteger gameId : pending) {
+                        snapshotStates.put(gameId, new GameState(false, null));
+                    }
+                    for (Game game : mapper.getByIds(pending)) {
+                        snapshotStates.put(game.getId(), new GameState(true, game.getTypeId()));
+                    }
+                }
+            });
+        } catch (Exception e) {
+            log.error("游戏数量校准失败: {}", e.getMessage(), e);
+        } finally {
+            synchronized (this) {
+                scanStates = null;
+            }
+        }
+    }
+
+    /**
+     * 用快照统计结果替换内存中的数量，扫描期间本实例写入的游戏去掉快照中的状态、加上写入后的状态
+     * 调用方需持有本对象的锁
+     */
+    private void apply(int sum, Map<BigInteger, Integer> counts, Map<BigInteger, GameState> snapshotStates) {
+        for (Map.Entry<BigInteger, GameState> entry : scanStates.entrySet()) {
+            GameState before = snapshotStates.get(entry.getKey());
+            GameState after = entry.getValue();
+            sum += after.count() - before.count();
+            if (before.live() && before.typeId() != null) {
+                counts.merge(before.typeId(), -1, Integer::sum);
+            }
+            if (after.live() && after.typeId() != null) {
+                counts.merge(after.typeId(), 1, Integer::sum);
+            }
+        }
+        if (ready && sum != total.get()) {
+            log.info("游戏数量校准，内存: {}, 数据库: {}", total.get(), sum);
+        }
+        total.set(sum);
+        byType.keySet().retainAll(counts.keySet());
+        for (Map.Entry<BigInteger, Integer> entry : counts.entrySet()) {
+            byType.computeIfAbsent(entry.getKey(), k -> new AtomicInteger()).set(entry.getValue());
+        }
+        ready = true;
+    }
+
+    /**
+     * 游戏的计数状态：是否有效及所属类型
+     */
+    private record GameState(boolean live, BigInteger typeId) {
+        int count() {
+            return live ? 1 : 0;
+        }
+    }
+
+    private record KeywordCount(int count, long expireTime) {
+    }
+}
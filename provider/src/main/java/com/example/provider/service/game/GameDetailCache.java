@@ -0,0 +1,133 @@
+package com.example.provider.service.game;
+
+import com.example.common.cache.TwoLevelCache;
+import com.example.common.entity.Game;
+import jakarta.annotation.Resource;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 游戏详情缓存
+ * 数据存放在本地+Redis二级缓存中；两级都未命中时同一个id只有一个线程查询数据库，
+ * 其他并发请求等待同一次查询的结果
+ */
+@Component
+public class GameDetailCache {
+
+    @Resource(name = "gameDetailStore")
+    private TwoLevelCache store;
+
+    private final Map<BigInteger, CompletableFuture<Game>> inflight = new ConcurrentHashMap<>();
+
+    /**
+     * 失效次数，加载期间发生过失效时不写入加载结果，避免旧数据覆盖
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * 获取游戏详情，未命中时调用loader加载
+     */
+    public Game get(BigInteger id, Function<BigInteger, Game> loader) {
+        if (id == null) {
+            return null;
+        }
+        Game cached = store.getIfPresent(id.toString());
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<Game> future = new CompletableFuture<>();
+        CompletableFuture<Game> existing = inflight.putIfAbsent(id, future);
+        if (existing != null) {
+            return join(existing);
+        }
+
+        long version = invalidations.get();
+        try {
+            Game game = loader.apply(id);
+            if (game != null && version == invalidations.get()) {
+                store.put(id.toString(), game);
+            }
+            future.complete(game);
+            return game;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inflight.remove(id, future);
+        }
+    }
+
+    /**
+     * 批量获取游戏详情
+     * 缓存未命中的id交给loader一次加载，加载结果批量写回缓存
+     *
+     * @return 游戏ID -> 游戏，不存在的游戏不在结果中
+     */
+    public Map<BigInteger, Game> getAll(Collection<BigInteger> ids, Function<List<BigInteger>, List<Game>> loader) {
+        Map<BigInteger, Game> result = new HashMap<>();
+        List<String> keys = new ArrayList<>();
+        for (BigInteger id : ids) {
+            if (id != null) {
+                keys.add(id.toString());
+            }
+        }
+        if (keys.isEmpty()) {
+            return result;
+        }
+        Map<String, Game> cached = store.getAllPresent(keys);
+        List<BigInteger> missIds = new ArrayList<>();
+        for (String key : keys) {
+            Game game = cached.get(key);
+            BigInteger id = new BigInteger(key);
+            if (game != null) {
+                result.put(id, game);
+            } else if (!missIds.contains(id)) {
+                missIds.add(id);
+            }
+        }
+        if (missIds.isEmpty()) {
+            return result;
+        }
+
+        long version = invalidations.get();
+        Map<String, Game> loaded = new HashMap<>();
+        for (Game game : loader.apply(missIds)) {
+            result.put(game.getId(), game);
+            loaded.put(game.getId().toString(), game);
+        }
+        if (version == invalidations.get()) {
+            store.putAll(loaded);
+        }
+        return result;
+    }
+
+    /**
+     * 清除两级缓存并通知所有实例
+     */
+    public void invalidate(BigInteger id) {
+        if (id == null) {
+            return;
+        }
+        invalidations.incrementAndGet();
+        store.evict(id.toString());
+    }
+
+    private static Game join(CompletableFuture<Game> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+}
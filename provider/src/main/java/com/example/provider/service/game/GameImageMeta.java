@@ -0,0 +1,67 @@
+package com.example.provider.service.game;
+
+import com.alibaba.fastjson.JSON;
+import com.example.common.dto.ImageMetaDTO;
+import com.example.common.entity.Game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 游戏图片元数据
+ * 上传时图片尺寸已写入文件名(xxx_宽x高.扩展名)，写入游戏时解析一次，保存封面和每张图片的宽高
+ */
+public class GameImageMeta {
+
+    private static final Pattern SIZE_PATTERN = Pattern.compile("_(\\d+)x(\\d+)\\.[A-Za-z0-9]+$");
+
+    private GameImageMeta() {
+    }
+
+    /**
+     * 解析以$分隔的图片地址
+     */
+    public static List<ImageMetaDTO> parse(String images) {
+        List<ImageMetaDTO> result = new ArrayList<>();
+        if (images == null || images.isEmpty()) {
+            return result;
+        }
+        for (String src : images.split("\\$")) {
+            if (src.isBlank()) {
+                continue;
+            }
+            ImageMetaDTO meta = new ImageMetaDTO().setSrc(src);
+            Matcher matcher = SIZE_PATTERN.matcher(src);
+            if (matcher.find()) {
+                try {
+                    meta.setWidth(Integer.parseInt(matcher.group(1)));
+                    meta.setHeight(Integer.parseInt(matcher.group(2)));
+                } catch (NumberFormatException e) {
+                    // 尺寸超出范围时按未知处理
+                    meta.setWidth(null);
+                }
+            }
+            result.add(meta);
+        }
+        return result;
+    }
+
+    /**
+     * 根据game.images填充封面和图片元数据
+     */
+    public static void apply(Game game) {
+        List<ImageMetaDTO> metas = parse(game.getImages());
+        if (metas.isEmpty()) {
+            return;
+        }
+        ImageMetaDTO cover = metas.get(0);
+        game.setCover(cover.getSrc());
+        if (cover.getWidth() != null && cover.getHeight() != null) {
+            game.setCoverWidth(cover.getWidth());
+            game.setCoverHeight(cover.getHeight());
+        }
+        game.setImageMeta(JSON.toJSONString(metas));
+    }
+}
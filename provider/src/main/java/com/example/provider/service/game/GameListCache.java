@@ -0,0 +1,245 @@
+package com.example.provider.service.game;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 游戏列表缓存
+ * 缓存过期时只有拿到重建租约的调用方去重建，其他调用方直接使用旧值，没有旧值时等待重建方写入后的Redis通知，
+ * 等待超时返回BUSY而不是各自重建，避免缓存过期瞬间大量请求同时重建同一页
+ * 缓存键中带有代数，游戏或类型修改后递增代数，受影响的列表页全部换成新键，旧键等待过期
+ */
+@Slf4j
+@Component
+public class GameListCache implements MessageListener {
+
+    /**
+     * 等待超时且没有旧值时的返回值，调用方应提示稍后重试而不是重建
+     */
+    public static final Object BUSY = new Object();
+
+    private static final String LEASE_SUFFIX = ":lease";
+    private static final String STALE_SUFFIX = ":stale";
+
+    /**
+     * 列表写入后的通知频道，消息内容为带代数的缓存键
+     */
+    private static final String READY_CHANNEL = "game_list_ready";
+
+    /**
+     * 代数存放的Hash，字段:
+     * global - 所有列表，类型修改时递增(类型名称参与关键词搜索和列表展示)
+     * all - 不按类型筛选的列表，任意游戏修改时递增
+     * type:{typeId} - 指定类型的列表，该类型下游戏修改时递增
+     */
+    private static final String GENERATION_KEY = "game_list_generation";
+    private static final String GLOBAL_FIELD = "global";
+    private static final String ALL_FIELD = "all";
+    private static final String TYPE_FIELD_PREFIX = "type:";
+
+    @Resource
+    private RedisTemplate<String, Object> redisTemplate;
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+    @Resource
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    /**
+     * 本实例内等待中的缓存键，同一键的等待方共用一个future，收到写入通知时完成
+     */
+    private final Map<String, CompletableFuture<Object>> waiting = new ConcurrentHashMap<>();
+
+    /**
+     * 重建租约时长，重建方超时未写入时其他调用方可以重新获取
+     */
+    @Value("${game.list-cache.lease-ms:3000}")
+    private long leaseMillis;
+
+    /**
+     * 未拿到租约且没有旧值时等待新值的最长时间
+     */
+    @Value("${game.list-cache.wait-ms:1000}")
+    private long waitMillis;
+
+    /**
+     * 修改会立即递增代数，过期时间只用于回收不再访问的旧键
+     */
+    @Value("${game.list-cache.ttl-minutes:720}")
+    private long ttlMinutes;
+
+    /**
+     * 旧值保留时间，用于重建期间返回
+     */
+    @Value("${game.list-cache.stale-ttl-minutes:1440}")
+    private long staleTtlMinutes;
+
+    /**
+     * 构建不带代数的缓存键: game_list-关键词-typeId-游标(lastId，未传时为page)
+     * 旧值副本使用该键，跨代数保留
+     */
+    public static String buildKey(String keyword, BigInteger typeId, Integer currentPage, BigInteger lastId) {
+        return "game_list-" +
+                (keyword != null ? keyword : "") + "-" +
+                (typeId != null ? typeId.toString() : "") + "-" +
+                (lastId != null ? lastId.toString() : currentPage);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(READY_CHANNEL));
+    }
+
+    /**
+     * 读取缓存
+     * 未命中时，拿到租约返回null由调用方重建；
+     * 未拿到租约时返回旧值，没有旧值则等待重建方写入的通知，等待期间不占用线程，等待超时返回BUSY
+     */
+    public CompletableFuture<Object> get(String keyword, BigInteger typeId, Integer currentPage, BigInteger lastId) {
+        String baseKey = buildKey(keyword, typeId, currentPage, lastId);
+        String cacheKey = versionedKey(baseKey, typeId);
+        Object value = redisTemplate.opsForValue().get(cacheKey);
+        if (value != null) {
+            return CompletableFuture.completedFuture(value);
+        }
+
+        Boolean acquired = stringRedisTemplate.opsForValue()
+                .setIfAbsent(cacheKey + LEASE_SUFFIX, "1", Duration.ofMillis(leaseMillis));
+        if (Boolean.TRUE.equals(acquired)) {
+            log.info("获取列表重建租约，缓存键: {}", cacheKey);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        Object stale = redisTemplate.opsForValue().get(baseKey + STALE_SUFFIX);
+        if (stale != null) {
+            return CompletableFuture.completedFuture(stale);
+        }
+
+        CompletableFuture<Object> shared = waiting.computeIfAbsent(cacheKey, key -> {
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            future.orTimeout(waitMillis, TimeUnit.MILLISECONDS)
+                    .whenComplete((result, e) -> waiting.remove(key, future));
+            return future;
+        });
+        // 注册等待后再读一次，避免错过注册前已经发出的通知
+        value = redisTemplate.opsForValue().get(cacheKey);
+        if (value != null) {
+            return CompletableFuture.completedFuture(value);
+        }
+        return shared.copy()
+                .completeOnTimeout(BUSY, waitMillis, TimeUnit.MILLISECONDS)
+                .exceptionally(e -> BUSY)
+                .thenApply(result -> result != null ? result : BUSY);
+    }
+
+    /**
+     * 写入缓存，同时保存旧值副本并释放租约，写入后通知等待方
+     * 租约已不存在说明重建期间代数发生了变化(或重建超时)，此时数据可能已过时，只更新旧值副本
+     */
+    public void put(String keyword, BigInteger typeId, Integer currentPage, BigInteger lastId, Object value) {
+        String baseKey = buildKey(keyword, typeId, currentPage, lastId);
+        String cacheKey = versionedKey(baseKey, typeId);
+        redisTemplate.opsForValue().set(baseKey + STALE_SUFFIX, value, Duration.ofMinutes(staleTtlMinutes));
+        if (!Boolean.TRUE.equals(stringRedisTemplate.delete(cacheKey + LEASE_SUFFIX))) {
+            log.info("列表重建租约已失效，只更新旧值，缓存键: {}", cacheKey);
+            return;
+        }
+        redisTemplate.opsForValue().set(cacheKey, value, Duration.ofMinutes(ttlMinutes));
+        try {
+            stringRedisTemplate.convertAndSend(READY_CHANNEL, cacheKey);
+        } catch (Exception e) {
+            log.warn("发布列表写入通知失败，缓存键: {}, 原因: {}", cacheKey, e.getMessage());
+        }
+    }
+
+    /**
+     * 收到写入通知后读取一次新值，完成本实例内该键的所有等待方
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String cacheKey = new String(message.getBody(), StandardCharsets.UTF_8);
+        CompletableFuture<Object> future = waiting.remove(cacheKey);
+        if (future == null) {
+            return;
+        }
+        try {
+            future.complete(redisTemplate.opsForValue().get(cacheKey));
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 游戏修改后调用，使不按类型筛选的列表和相关类型的列表失效
+     *
+     * @param typeIds 游戏修改前后所属的类型，可以包含null
+     */
+    public void onGameChanged(BigInteger... typeIds) {
+        Set<String> fields = new LinkedHashSet<>();
+        fields.add(ALL_FIELD);
+        for (BigInteger typeId : typeIds) {
+            if (typeId != null) {
+                fields.add(TYPE_FIELD_PREFIX + typeId);
+            }
+        }
+        increment(fields);
+    }
+
+    /**
+     * 类型修改后调用，使所有列表失效
+     */
+    public void onTypeChanged() {
+        invalidateAll();
+    }
+
+    /**
+     * 使所有列表失效
+     */
+    public void invalidateAll() {
+        increment(Set.of(GLOBAL_FIELD));
+    }
+
+    private void increment(Set<String> fields) {
+        try {
+            for (String field : fields) {
+                stringRedisTemplate.opsForHash().increment(GENERATION_KEY, field, 1);
+            }
+        } catch (Exception e) {
+            log.warn("递增列表缓存代数失败，字段: {}, 原因: {}", fields, e.getMessage());
+        }
+    }
+
+    /**
+     * 在键前加上当前代数: game_list:{global}.{all或type代数}:原键
+     */
+    private String versionedKey(String baseKey, BigInteger typeId) {
+        String scopeField = typeId != null ? TYPE_FIELD_PREFIX + typeId : ALL_FIELD;
+        List<Object> generations = stringRedisTemplate.opsForHash()
+                .multiGet(GENERATION_KEY, Arrays.asList(GLOBAL_FIELD, scopeField));
+        return "game_list:" + generationOf(generations.get(0)) + "." + generationOf(generations.get(1)) + ":" + baseKey;
+    }
+
+    private static String generationOf(Object value) {
+        return value != null ? value.toString() : "0";
+    }
+}
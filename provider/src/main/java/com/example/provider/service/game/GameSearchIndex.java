@@ -0,0 +1,497 @@
+package com.example.provider.service.game;
+
+import com.example.common.annotations.DataSource;
+import com.example.common.cache.TwoLevelCache;
+import com.example.common.config.mysql.DataSourceContextHolder;
+import com.example.common.config.mysql.DataSourceType;
+import com.example.common.entity.Game;
+import com.example.provider.mapper.game.GameMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 游戏名称全文索引
+ * 基于字符二元组(bigram)的倒排索引，同时适用于中文和英文，
+ * 关键词检索在内存中完成，不再对game表做 LIKE '%keyword%' 全表扫描
+ * 倒排表按游戏ID有序，游标翻页从lastId处定位，取满一页即停止；
+ * 本实例的写入通过二级缓存的失效频道通知其他实例，其他实例从主库读取该游戏后更新索引
+ */
+@Slf4j
+@Component
+public class GameSearchIndex implements MessageListener {
+
+    /**
+     * 失效频道上索引消息的名称，消息键为 实例ID:游戏ID
+     */
+    static final String INDEX_NAME = "game_search_index";
+
+    /**
+     * 按相关度排序的检索结果缓存条数
+     */
+    private static final int MAX_RANKED_ENTRIES = 1000;
+
+    @Resource
+    private GameMapper mapper;
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+    @Resource
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    /**
+     * 本实例ID，收到自己发出的消息时忽略
+     */
+    private final String instanceId = UUID.randomUUID().toString();
+
+    /**
+     * 当前提供查询的索引段
+     */
+    private volatile Segment current = new Segment();
+
+    /**
+     * 重建期间的写入，扫描结束后按顺序重放到新索引段再替换，避免被扫描到的旧数据覆盖；不在重建时为null
+     */
+    private List<Consumer<Segment>> pendingWrites;
+
+    /**
+     * 写入索引和替换索引段时持有
+     */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /**
+     * 是否已完成首次构建，未就绪时调用方应回退到数据库查询
+     */
+    private volatile boolean ready = false;
+
+    @PostConstruct
+    public void subscribe() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(TwoLevelCache.CHANNEL));
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 新增或更新索引中的游戏，并通知其他实例
+     */
+    public void put(BigInteger id, String gameName, BigInteger typeId) {
+        if (id == null || gameName == null) {
+            return;
+        }
+        write(segment -> segment.put(id, gameName, typeId));
+        publish(id);
+    }
+
+    /**
+     * 从索引中移除游戏，并通知其他实例
+     */
+    public void remove(BigInteger id) {
+        if (id == null) {
+            return;
+        }
+        write(segment -> segment.remove(id));
+        publish(id);
+    }
+
+    private void write(Consumer<Segment> write) {
+        writeLock.lock();
+        try {
+            write.accept(current);
+            if (pendingWrites != null) {
+                pendingWrites.add(write);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 关键词检索，返回按相关度排序的全部游戏ID
+     * 名称命中的游戏在前，仅类型名称命中的游戏按ID排在后面；
+     * 排序结果按索引版本缓存，同一关键词翻页时不再重新排序
+     *
+     * @param keyword        关键词
+     * @param typeId         限定类型，可为空
+     * @param keywordTypeIds 名称包含关键词的类型ID
+     * @return 不可修改的列表
+     */
+    public List<BigInteger> search(String keyword, BigInteger typeId, Collection<BigInteger> keywordTypeIds) {
+        return current.search(normalize(keyword), typeId, keywordTypeIds);
+    }
+
+    /**
+     * 按相关度取一页检索结果
+     */
+    public List<BigInteger> searchPage(String keyword, BigInteger typeId, Collection<BigInteger> keywordTypeIds,
+                                       int offset, int limit) {
+        List<BigInteger> ids = search(keyword, typeId, keywordTypeIds);
+        int from = Math.min(offset, ids.size());
+        int to = Math.min(from + limit, ids.size());
+        return new ArrayList<>(ids.subList(from, to));
+    }
+
+    /**
+     * 获取某个类型下的全部游戏ID
+     */
+    public List<BigInteger> getIdsByType(BigInteger typeId) {
+        Set<BigInteger> ids = current.byType.get(typeId);
+        return ids == null ? new ArrayList<>() : new ArrayList<>(ids);
+    }
+
+    /**
+     * 按ID游标检索，返回id大于lastId的命中结果（按ID升序）
+     * 各倒排表从lastId之后开始遍历，取满limit条即停止
+     */
+    public List<BigInteger> searchAfter(String keyword, BigInteger typeId, Collection<BigInteger> keywordTypeIds,
+                                        BigInteger lastId, int limit) {
+        return current.searchAfter(normalize(keyword), typeId, keywordTypeIds, lastId, limit);
+    }
+
+    /**
+     * 全量重建索引
+     * 启动时执行一次，之后低频定时执行，用于修复丢失消息等原因造成的偏差
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${game.search.rebuild-interval:3600000}")
+    @DataSource(DataSourceType.SLAVE)
+    public void rebuild() {
+        long startTime = System.currentTimeMillis();
+        Segment segment = new Segment();
+        writeLock.lock();
+        try {
+            pendingWrites = new ArrayList<>();
+        } finally {
+            writeLock.unlock();
+        }
+        try {
+            mapper.scanIndexEntries(context -> {
+                Game game = context.getResultObject();
+                segment.put(game.getId(), game.getGameName(), game.getTypeId());
+            });
+            int replayed;
+            writeLock.lock();
+            try {
+                // 扫描期间的写入可能早于从库中读到的数据，重放后再替换
+                for (Consumer<Segment> write : pendingWrites) {
+                    write.accept(segment);
+                }
+                replayed = pendingWrites.size();
+                current = segment;
+            } finally {
+                writeLock.unlock();
+            }
+            ready = true;
+            log.info("游戏搜索索引构建完成，游戏数: {}, 重放写入: {}, 耗时: {}ms",
+                    segment.docs.size(), replayed, System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            log.error("游戏搜索索引构建失败: {}", e.getMessage(), e);
+        } finally {
+            writeLock.lock();
+            try {
+                pendingWrites = null;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 其他实例写入后，从主库读取该游戏并更新本实例索引
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        TwoLevelCache.Invalidation invalidation = TwoLevelCache.decode(message);
+        if (invalidation == null || !INDEX_NAME.equals(invalidation.name())) {
+            return;
+        }
+        int index = invalidation.key().lastIndexOf(':');
+        if (index < 0 || instanceId.equals(invalidation.key().substring(0, index))) {
+            return;
+        }
+        try {
+            BigInteger id = new BigInteger(invalidation.key().substring(index + 1));
+            Game game;
+            DataSourceContextHolder.push(DataSourceType.MASTER);
+            try {
+                game = mapper.getById(id);
+            } finally {
+                DataSourceContextHolder.pop();
+            }
+            if (game == null) {
+                write(segment -> segment.remove(id));
+            } else {
+                write(segment -> segment.put(id, game.getGameName(), game.getTypeId()));
+            }
+        } catch (Exception e) {
+            log.warn("同步游戏搜索索引失败，消息: {}, 原因: {}", invalidation.key(), e.getMessage());
+        }
+    }
+
+    private void publish(BigInteger id) {
+        try {
+            stringRedisTemplate.convertAndSend(TwoLevelCache.CHANNEL, TwoLevelCache.encode(INDEX_NAME, instanceId + ":" + id));
+        } catch (Exception e) {
+            log.warn("发布游戏搜索索引消息失败，游戏: {}, 原因: {}", id, e.getMessage());
+        }
+    }
+
+    /**
+     * 统一大小写并去掉首尾空白
+     */
+    static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 切分字符二元组，单字时返回单字
+     */
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        if (text.length() == 1) {
+            grams.add(text);
+            return grams;
+        }
+        for (int i = 0; i + 1 < text.length(); i++) {
+            grams.add(text.substring(i, i + 2));
+        }
+        return grams;
+    }
+
+    /**
+     * 文档写入倒排表的词项：单字和二元组，单字用于单字关键词检索
+     */
+    private static Set<String> terms(String name) {
+        Set<String> terms = grams(name);
+        for (int i = 0; i < name.length(); i++) {
+            terms.add(name.substring(i, i + 1));
+        }
+        return terms;
+    }
+
+    /**
+     * 索引中的一条游戏记录
+     */
+    private record Doc(BigInteger id, String name, BigInteger typeId) {
+    }
+
+    /**
+     * 索引段，包含文档表、倒排表和类型表，倒排表和类型表按游戏ID有序
+     */
+    static class Segment {
+        private final Map<BigInteger, Doc> docs = new ConcurrentHashMap<>();
+        private final Map<String, NavigableSet<BigInteger>> postings = new ConcurrentHashMap<>();
+        private final Map<BigInteger, NavigableSet<BigInteger>> byType = new ConcurrentHashMap<>();
+
+        /**
+         * 写入次数，作为排序结果缓存键的一部分，写入后旧结果不再命中
+         */
+        private final AtomicLong version = new AtomicLong();
+        private final Cache<String, List<BigInteger>> ranked = Caffeine.newBuilder()
+                .maximumSize(MAX_RANKED_ENTRIES)
+                .build();
+
+        synchronized void put(BigInteger id, String gameName, BigInteger typeId) {
+            Doc old = docs.get(id);
+            // 更新时未传类型则沿用原类型，与 update 语句的行为一致
+            if (typeId == null && old != null) {
+                typeId = old.typeId();
+            }
+            remove(id);
+            Doc doc = new Doc(id, normalize(gameName), typeId);
+            docs.put(id, doc);
+            for (String term : terms(doc.name())) {
+                postings.computeIfAbsent(term, k -> new ConcurrentSkipListSet<>()).add(id);
+            }
+            if (typeId != null) {
+                byType.computeIfAbsent(typeId, k -> new ConcurrentSkipListSet<>()).add(id);
+            }
+            version.incrementAndGet();
+        }
+
+        synchronized void remove(BigInteger id) {
+            Doc doc = docs.remove(id);
+            if (doc == null) {
+                return;
+            }
+            for (String term : terms(doc.name())) {
+                Set<BigInteger> ids = postings.get(term);
+                if (ids != null) {
+                    ids.remove(id);
+                }
+            }
+            if (doc.typeId() != null) {
+                Set<BigInteger> ids = byType.get(doc.typeId());
+                if (ids != null) {
+                    ids.remove(id);
+                }
+            }
+            version.incrementAndGet();
+        }
+
+        List<BigInteger> search(String keyword, BigInteger typeId, Collection<BigInteger> keywordTypeIds) {
+            if (keyword.isEmpty()) {
+                return Collections.emptyList();
+            }
+            String key = version.get() + "-" + keyword + "-" + typeId + "-" + keywordTypeIds;
+            return ranked.get(key, k -> Collections.unmodifiableList(rank(keyword, typeId, keywordTypeIds)));
+        }
+
+        private List<BigInteger> rank(String keyword, BigInteger typeId, Collection<BigInteger> keywordTypeIds) {
+            List<Doc> nameHits = new ArrayList<>();
+            Set<BigInteger> hitIds = new HashSet<>();
+            List<NavigableSet<BigInteger>> lists = postingLists(keyword);
+            if (!lists.isEmpty()) {
+                for (BigInteger id : lists.get(0)) {
+                    Doc doc = nameHit(lists, id, keyword, typeId);
+                    if (doc != null) {
+                        nameHits.add(doc);
+                        hitIds.add(id);
+                    }
+                }
+            }
+
+            // 完全匹配 > 前缀匹配 > 包含，同级按名称覆盖率、ID排序
+            nameHits.sort(Comparator
+                    .comparingInt((Doc doc) -> rank(doc, keyword))
+                    .thenComparingInt(doc -> doc.name().length())
+                    .thenComparing(Doc::id));
+
+            List<BigInteger> result = new ArrayList<>(nameHits.size());
+            for (Doc doc : nameHits) {
+                result.add(doc.id());
+            }
+
+            // 类型名称命中的游戏排在名称命中之后
+            if (keywordTypeIds != null && !keywordTypeIds.isEmpty()) {
+                NavigableSet<BigInteger> typeHits = new TreeSet<>();
+                for (NavigableSet<BigInteger> ids : typeLists(typeId, keywordTypeIds)) {
+                    for (BigInteger id : ids) {
+                        if (!hitIds.contains(id)) {
+                            typeHits.add(id);
+                        }
+                    }
+                }
+                result.addAll(typeHits);
+            }
+            return result;
+        }
+
+        List<BigInteger> searchAfter(String keyword, BigInteger typeId, Collection<BigInteger> keywordTypeIds,
+                                     BigInteger lastId, int limit) {
+            if (keyword.isEmpty() || limit <= 0) {
+                return new ArrayList<>();
+            }
+            // 名称命中和每个类型各自按ID顺序最多取limit条，合并后的前limit条即为结果
+            NavigableSet<BigInteger> merged = new TreeSet<>();
+            List<NavigableSet<BigInteger>> lists = postingLists(keyword);
+            if (!lists.isEmpty()) {
+                int found = 0;
+                for (BigInteger id : tail(lists.get(0), lastId)) {
+                    if (nameHit(lists, id, keyword, typeId) != null) {
+                        merged.add(id);
+                        if (++found >= limit) {
+                            break;
+                        }
+                    }
+                }
+            }
+            if (keywordTypeIds != null) {
+                for (NavigableSet<BigInteger> ids : typeLists(typeId, keywordTypeIds)) {
+                    int found = 0;
+                    for (BigInteger id : tail(ids, lastId)) {
+                        merged.add(id);
+                        if (++found >= limit) {
+                            break;
+                        }
+                    }
+                }
+            }
+            List<BigInteger> result = new ArrayList<>(limit);
+            for (BigInteger id : merged) {
+                result.add(id);
+                if (result.size() >= limit) {
+                    break;
+                }
+            }
+            return result;
+        }
+
+        /**
+         * 关键词各二元组的倒排表，按长度升序；任一二元组没有命中时返回空列表
+         */
+        private List<NavigableSet<BigInteger>> postingLists(String keyword) {
+            List<NavigableSet<BigInteger>> lists = new ArrayList<>();
+            for (String gram : grams(keyword)) {
+                NavigableSet<BigInteger> ids = postings.get(gram);
+                if (ids == null || ids.isEmpty()) {
+                    return new ArrayList<>();
+                }
+                lists.add(ids);
+            }
+            lists.sort(Comparator.comparingInt(Set::size));
+            return lists;
+        }
+
+        /**
+         * 校验最短倒排表中的游戏是否命中，命中时返回文档
+         */
+        private Doc nameHit(List<NavigableSet<BigInteger>> lists, BigInteger id, String keyword, BigInteger typeId) {
+            for (int i = 1; i < lists.size(); i++) {
+                if (!lists.get(i).contains(id)) {
+                    return null;
+                }
+            }
+            Doc doc = docs.get(id);
+            // 二元组命中后再校验子串，结果与 LIKE '%keyword%' 一致
+            if (doc == null || !doc.name().contains(keyword)) {
+                return null;
+            }
+            if (typeId != null && !typeId.equals(doc.typeId())) {
+                return null;
+            }
+            return doc;
+        }
+
+        private List<NavigableSet<BigInteger>> typeLists(BigInteger typeId, Collection<BigInteger> keywordTypeIds) {
+            List<NavigableSet<BigInteger>> lists = new ArrayList<>();
+            for (BigInteger keywordTypeId : keywordTypeIds) {
+                if (typeId != null && !typeId.equals(keywordTypeId)) {
+                    continue;
+                }
+                NavigableSet<BigInteger> ids = byType.get(keywordTypeId);
+                if (ids != null) {
+                    lists.add(ids);
+                }
+            }
+            return lists;
+        }
+
+        private static NavigableSet<BigInteger> tail(NavigableSet<BigInteger> ids, BigInteger lastId) {
+            return lastId == null ? ids : ids.tailSet(lastId, false);
+        }
+
+        private static int rank(Doc doc, String keyword) {
+            if (doc.name().equals(keyword)) {
+                return 0;
+            }
+            return doc.name().startsWith(keyword) ? 1 : 2;
+        }
+    }
+}
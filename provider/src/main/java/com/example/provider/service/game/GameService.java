@@ -3,18 +3,23 @@ package com.example.provider.service.game;
 
 import com.alibaba.fastjson.JSON;
 import com.example.common.annotations.DataSource;
+import com.example.common.config.mysql.DataSourceContextHolder;
 import com.example.common.config.mysql.DataSourceType;
+import com.example.common.dto.GameDetailDTO;
 import com.example.common.dto.IntroductionDTO;
 import com.example.common.entity.Game;
+import com.example.common.entity.GameListDTO;
 import com.example.common.entity.Type;
+import com.example.common.utils.TransactionUtils;
 import com.example.provider.mapper.game.GameMapper;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigInteger;
-import java.util.List;
+import java.util.*;
 
 @Slf4j
 @Service
@@ -26,11 +31,137 @@ public class GameService {
     private TypeService typeService;
     @Resource
     private TagService tagService;
+    @Resource
+    private GameSearchIndex searchIndex;
+    @Resource
+    private GameTagIndex gameTagIndex;
+    @Resource
+    private GameCounter gameCounter;
+    @Resource
+    private GameDetailCache gameDetailCache;
+    @Resource
+    private GameListCache gameListCache;
 
 
     @DataSource(DataSourceType.SLAVE)
     public Game getById(BigInteger id) {
-        return mapper.getById(id);
+        return gameDetailCache.get(id, this::loadGame);
+    }
+
+    /**
+     * 获取游戏详情及其类型、标签，游戏不存在时返回null
+     */
+    @DataSource(DataSourceType.SLAVE)
+    public GameDetailDTO getDetail(BigInteger id) {
+        Game game = getById(id);
+        if (game == null) {
+            return null;
+        }
+        Type type = game.getTypeId() != null ? typeService.getById(game.getTypeId()) : null;
+        return new GameDetailDTO()
+                .setGame(game)
+                .setType(type)
+                .setTags(tagService.getTagsByGameId(id));
+    }
+
+    /**
+     * 批量获取游戏详情，按传入顺序返回，不存在的游戏跳过
+     */
+    @DataSource(DataSourceType.SLAVE)
+    public List<Game> getByIds(List<BigInteger> ids) {
+        Map<BigInteger, Game> gameMap = gameDetailCache.getAll(ids, this::loadGames);
+        List<Game> result = new ArrayList<>();
+        Set<BigInteger> added = new HashSet<>();
+        for (BigInteger id : ids) {
+            Game game = gameMap.get(id);
+            if (game != null && added.add(id)) {
+                result.add(game);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 从主库读取游戏详情并解析介绍，结果写入详情缓存，之后的请求不再解析
+     * 缓存未命中多发生在写入失效之后，从延迟的从库读取会把旧数据写回两级缓存直到过期
+     */
+    private Game loadGame(BigInteger id) {
+        Game game;
+        DataSourceContextHolder.push(DataSourceType.MASTER);
+        try {
+            game = mapper.getById(id);
+        } finally {
+            DataSourceContextHolder.pop();
+        }
+        if (game != null) {
+            game.setIntroductionBlocks(readIntroduction(game));
+        }
+        return game;
+    }
+
+    private List<Game> loadGames(List<BigInteger> ids) {
+        List<Game> games;
+        DataSourceContextHolder.push(DataSourceType.MASTER);
+        try {
+            games = mapper.getByIds(ids);
+        } finally {
+            DataSourceContextHolder.pop();
+        }
+        for (Game game : games) {
+            game.setIntroductionBlocks(readIntroduction(game));
+        }
+        return games;
+    }
+
+    /**
+     * 解析已保存的游戏介绍，内容已在写入时校验，这里解析失败只记录日志
+     */
+    private static List<IntroductionDTO> readIntroduction(Game game) {
+        if (game.getGameIntroduction() == null || game.getGameIntroduction().isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            List<IntroductionDTO> blocks = JSON.parseArray(game.getGameIntroduction(), IntroductionDTO.class);
+            return blocks != null ? blocks : new ArrayList<>();
+        } catch (Exception e) {
+            log.warn("解析游戏介绍失败，游戏ID: {}, 原因: {}", game.getId(), e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * 校验并规范化游戏介绍
+     * 类型必须是IntroductionDefine中定义的类型；图片、视频地址去除首尾空白；内容为空的块丢弃
+     */
+    private static List<IntroductionDTO> normalizeIntroduction(String gameIntroduction) {
+        List<IntroductionDTO> blocks;
+        try {
+            blocks = JSON.parseArray(gameIntroduction, IntroductionDTO.class);
+        } catch (Exception e) {
+            throw new RuntimeException("gameIntroduction格式错误");
+        }
+        List<IntroductionDTO> result = new ArrayList<>();
+        if (blocks == null) {
+            return result;
+        }
+        for (IntroductionDTO block : blocks) {
+            if (block == null) {
+                continue;
+            }
+            String type = block.getType() != null ? block.getType().trim() : null;
+            if (!IntroductionDefine.isIntroductionType(type)) {
+                throw new RuntimeException("gameIntroduction格式错误");
+            }
+            String content = block.getContent();
+            if (!IntroductionDefine.INTRODUCTION_CONTENT_TYPE_TEXT.getName().equals(type) && content != null) {
+                content = content.trim();
+            }
+            if (content == null || content.isBlank()) {
+                continue;
+            }
+            result.add(new IntroductionDTO().setType(type).setContent(content));
+        }
+        return result;
     }
 
     @DataSource(DataSourceType.SLAVE)
@@ -41,13 +172,38 @@ public class GameService {
     @DataSource(DataSourceType.MASTER)
     @Transactional
     public int insert(Game game) {
-        return mapper.insert(game);
+        int result = mapper.insert(game);
+        if (result > 0) {
+            TransactionUtils.afterCommit(() -> {
+                gameCounter.increment(game.getId(), game.getTypeId());
+                gameListCache.onGameChanged(game.getTypeId());
+            });
+        }
+        return result;
     }
 
     @DataSource(DataSourceType.MASTER)
     @Transactional
     public int update(Game game) {
-        return mapper.update(game);
+        Game old = mapper.getById(game.getId());
+        int result = mapper.update(game);
+        if (result > 0 && old != null) {
+            BigInteger oldTypeId = old.getTypeId();
+            BigInteger newTypeId = game.getTypeId();
+            if (newTypeId != null && !newTypeId.equals(oldTypeId)) {
+                TransactionUtils.afterCommit(() -> gameCounter.move(game.getId(), oldTypeId, newTypeId));
+            } else {
+                TransactionUtils.afterCommit(gameCounter::clearKeywordCounts);
+            }
+        }
+        if (result > 0) {
+            BigInteger oldTypeId = old != null ? old.getTypeId() : null;
+            TransactionUtils.afterCommit(() -> {
+                gameDetailCache.invalidate(game.getId());
+                gameListCache.onGameChanged(oldTypeId, game.getTypeId());
+            });
+        }
+        return result;
     }
 
     @DataSource(DataSourceType.MASTER)
@@ -57,23 +213,166 @@ public class GameService {
         if (id == null) {
             throw new RuntimeException("id 不能为空");
         }
-        return mapper.delete(id, time);
+        Game old = mapper.getById(id);
+        int result = mapper.delete(id, time);
+        if (result > 0) {
+            BigInteger oldTypeId = old != null ? old.getTypeId() : null;
+            TransactionUtils.afterCommit(() -> {
+                searchIndex.remove(id);
+                gameTagIndex.removeGame(id);
+                gameCounter.decrement(id, oldTypeId);
+                gameDetailCache.invalidate(id);
+                gameListCache.onGameChanged(oldTypeId);
+            });
+        }
+        return result;
     }
 
 
     @DataSource(DataSourceType.SLAVE)
     public List<Game> getAllGame(Integer page, Integer pageSize, String keyword, BigInteger typeId) {
-        List<BigInteger> typeIdList = typeService.getTypeIdList(keyword);
-        StringBuilder typeIdString = new StringBuilder();
-        for (BigInteger bigInteger : typeIdList) {
-            if (!typeIdString.isEmpty()) {
-                typeIdString.append(",");
+        if (useSearchIndex(keyword)) {
+            return getByIdsInOrder(searchIndex.searchPage(keyword, typeId, typeService.getTypeIdList(keyword),
+                    (page - 1) * pageSize, pageSize));
+        }
+        return mapper.getAll((page - 1) * pageSize, pageSize, keyword, typeId, typeService.getTypeIdList(keyword));
+    }
+
+    /**
+     * 按ID游标获取游戏列表，返回id大于lastId的下一页
+     */
+    @DataSource(DataSourceType.SLAVE)
+    public List<Game> getAllGameAfterId(BigInteger lastId, Integer pageSize, String keyword, BigInteger typeId) {
+        if (lastId == null) {
+            lastId = BigInteger.ZERO;
+        }
+        if (useSearchIndex(keyword)) {
+            return getByIdsInOrder(searchIndex.searchAfter(keyword, typeId, typeService.getTypeIdList(keyword), lastId, pageSize));
+        }
+        return mapper.getAllAfterId(lastId, pageSize, keyword, typeId, typeService.getTypeIdList(keyword));
+    }
+
+    /**
+     * 按标签筛选游戏列表，可同时按关键词和类型筛选，结果按ID升序
+     *
+     * @param tagIds  标签ID列表
+     * @param tagMode any-包含任一标签 all-包含全部标签
+     */
+    @DataSource(DataSourceType.SLAVE)
+    public List<Game> getAllGameByTags(Integer page, Integer pageSize, String keyword, BigInteger typeId,
+                                       List<BigInteger> tagIds, String tagMode) {
+        return getByIdsInOrder(getIdsByTags(page, pageSize, keyword, typeId, tagIds, tagMode));
+    }
+
+    private List<BigInteger> getIdsByTags(Integer page, Integer pageSize, String keyword, BigInteger typeId,
+                                          List<BigInteger> tagIds, String tagMode) {
+        if (!gameTagIndex.isReady() || !searchIndex.isReady()) {
+            // 索引尚未构建完成(或构建失败)时查询数据库
+            return mapper.getIdsByTags((page - 1) * pageSize, pageSize, keyword, typeId, typeService.getTypeIdList(keyword),
+                    new ArrayList<>(new LinkedHashSet<>(tagIds)), GameTagIndex.MODE_ALL.equals(tagMode));
+        }
+        RoaringBitmap candidates = gameTagIndex.query(tagIds, tagMode);
+        if (keyword != null && !keyword.isEmpty()) {
+            candidates.and(GameTagIndex.bitmapOf(searchIndex.search(keyword, typeId, typeService.getTypeIdList(keyword))));
+        } else if (typeId != null) {
+            candidates.and(GameTagIndex.bitmapOf(searchIndex.getIdsByType(typeId)));
+        }
+        return GameTagIndex.page(candidates, (page - 1) * pageSize, pageSize);
+    }
+
+    /**
+     * 获取游戏列表投影，只查询列表展示需要的列，类型名称从类型快照填充
+     * 筛选条件与getAllGame、getAllGameByTags一致
+     */
+    @DataSource(DataSourceType.SLAVE)
+    public List<GameListDTO> getGameList(Integer page, Integer pageSize, String keyword, BigInteger typeId,
+                                         List<BigInteger> tagIds, String tagMode) {
+        List<GameListDTO> list;
+        if (tagIds != null && !tagIds.isEmpty()) {
+            list = getListByIdsInOrder(getIdsByTags(page, pageSize, keyword, typeId, tagIds, tagMode));
+        } else if (useSearchIndex(keyword)) {
+            list = getListByIdsInOrder(searchIndex.searchPage(keyword, typeId, typeService.getTypeIdList(keyword),
+                    (page - 1) * pageSize, pageSize));
+        } else {
+            list = mapper.getListAll((page - 1) * pageSize, pageSize, keyword, typeId, typeService.getTypeIdList(keyword));
+        }
+        return fillTypeName(list);
+    }
+
+    /**
+     * 按ID游标获取游戏列表投影，返回id大于lastId的下一页
+     */
+    @DataSource(DataSourceType.SLAVE)
+    public List<GameListDTO> getGameListAfterId(BigInteger lastId, Integer pageSize, String keyword, BigInteger typeId) {
+        if (lastId == null) {
+            lastId = BigInteger.ZERO;
+        }
+        List<GameListDTO> list;
+        if (useSearchIndex(keyword)) {
+            list = getListByIdsInOrder(searchIndex.searchAfter(keyword, typeId, typeService.getTypeIdList(keyword), lastId, pageSize));
+        } else {
+            list = mapper.getListAfterId(lastId, pageSize, keyword, typeId, typeService.getTypeIdList(keyword));
+        }
+        return fillTypeName(list);
+    }
+
+    private List<GameListDTO> getListByIdsInOrder(List<BigInteger> ids) {
+        List<GameListDTO> result = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return result;
+        }
+        Map<BigInteger, GameListDTO> gameMap = new HashMap<>();
+        for (GameListDTO game : mapper.getListByIds(ids)) {
+            gameMap.put(game.getId(), game);
+        }
+        for (BigInteger id : ids) {
+            GameListDTO game = gameMap.get(id);
+            if (game != null) {
+                result.add(game);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 类型已删除时类型名称为null
+     */
+    private List<GameListDTO> fillTypeName(List<GameListDTO> list) {
+        for (GameListDTO game : list) {
+            if (game.getTypeId() != null) {
+                Type type = typeService.getById(game.getTypeId());
+                game.setTypeName(type != null ? type.getTypeName() : null);
             }
-            typeIdString.append(bigInteger.toString());
         }
-        String ids = typeIdString.toString();
+        return list;
+    }
 
-        return mapper.getAll((page - 1) * pageSize, pageSize, keyword, typeId, ids);
+    /**
+     * 有关键词且索引已就绪时走内存索引，否则回退到 LIKE 查询
+     */
+    private boolean useSearchIndex(String keyword) {
+        return keyword != null && !keyword.isEmpty() && searchIndex.isReady();
+    }
+
+    /**
+     * 按ID列表取游戏，并保持索引给出的顺序
+     */
+    private List<Game> getByIdsInOrder(List<BigInteger> ids) {
+        List<Game> result = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return result;
+        }
+        Map<BigInteger, Game> gameMap = new HashMap<>();
+        for (Game game : mapper.getByIds(ids)) {
+            gameMap.put(game.getId(), game);
+        }
+        for (BigInteger id : ids) {
+            Game game = gameMap.get(id);
+            if (game != null) {
+                result.add(game);
+            }
+        }
+        return result;
     }
 
     @DataSource(DataSourceType.SLAVE)
@@ -81,20 +380,26 @@ public class GameService {
         return mapper.getAllGameByTypeId(typeId);
     }
 
+    /**
+     * 批量获取多个类型下的前limit个游戏，按类型ID分组
+     */
+    @DataSource(DataSourceType.SLAVE)
+    public Map<BigInteger, List<Game>> getTopGamesByTypeIds(List<BigInteger> typeIds, Integer limit) {
+        Map<BigInteger, List<Game>> result = new HashMap<>();
+        if (typeIds == null || typeIds.isEmpty() || limit == null || limit <= 0) {
+            return result;
+        }
+        for (Game game : mapper.getTopGamesByTypeIds(typeIds, limit)) {
+            result.computeIfAbsent(game.getTypeId(), k -> new ArrayList<>()).add(game);
+        }
+        return result;
+    }
+
 
     @DataSource(DataSourceType.MASTER)
     @Transactional
     public BigInteger edit(BigInteger id, String gameName, Float price, String gameIntroduction, String gameDate, String gamePublisher, String images, BigInteger typeId, String tags) {
-        try {
-            List<IntroductionDTO> check = JSON.parseArray(gameIntroduction, IntroductionDTO.class);
-            for (IntroductionDTO introductionDTO : check) {
-                if (!IntroductionDefine.isIntroductionType(introductionDTO.getType())) {
-                    throw new RuntimeException("gameIntroduction格式错误");
-                }
-            }
-        } catch (RuntimeException e) {
-            throw new RuntimeException(e);
-        }
+        List<IntroductionDTO> introductionBlocks = normalizeIntroduction(gameIntroduction);
         if (gameName == null || gameName.isEmpty()) {
             throw new RuntimeException("gameName 不能为空");
         }
@@ -123,10 +428,11 @@ public class GameService {
         Game game = new Game();
         game.setGameName(gameName);
         game.setPrice(price);
-        game.setGameIntroduction(gameIntroduction);
+        game.setGameIntroduction(JSON.toJSONString(introductionBlocks));
         game.setGameDate(gameDate);
         game.setGamePublisher(gamePublisher);
         game.setImages(images);
+        GameImageMeta.apply(game);
         game.setUpdateTime(time);
         game.setTypeId(typeId);
         if (id == null) {
@@ -145,14 +451,29 @@ public class GameService {
             }
         }
         tagService.updateGameTags(id, tags);
+        BigInteger gameId = id;
+        TransactionUtils.afterCommit(() -> searchIndex.put(gameId, gameName, typeId));
         return game.getId();
 
     }
 
 
     @DataSource(DataSourceType.SLAVE)
-    public Integer getTotalCount(String keyword) {
-        return mapper.getTotalCount(keyword);
+    public Integer getTotalCount(String keyword, BigInteger typeId) {
+        if (keyword == null || keyword.isEmpty()) {
+            if (gameCounter.isReady()) {
+                return gameCounter.count(typeId);
+            }
+            return mapper.getTotalCount(null, typeId, null);
+        }
+        // 与列表一致，类型名称命中的游戏也计入
+        return gameCounter.countByKeyword(keyword, typeId, () -> {
+            List<BigInteger> typeIds = typeService.getTypeIdList(keyword);
+            if (searchIndex.isReady()) {
+                return searchIndex.search(keyword, typeId, typeIds).size();
+            }
+            return mapper.getTotalCount(keyword, typeId, typeIds);
+        });
     }
 
 }
@@ -0,0 +1,337 @@
+package com.example.provider.service.game;
+
+import com.example.common.annotations.DataSource;
+import com.example.common.cache.TwoLevelCache;
+import com.example.common.config.mysql.DataSourceContextHolder;
+import com.example.common.config.mysql.DataSourceType;
+import com.example.common.entity.GameTagRelation;
+import com.example.provider.mapper.game.GameTagRelationMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * 标签 -> 游戏 位图索引
+ * 每个标签对应一个压缩位图，多标签筛选通过位图求交集/并集完成，结果天然按游戏ID升序
+ * 游戏ID为自增主键，按int存储；出现超出int范围的游戏ID后索引停用，查询回退到数据库
+ * 本实例的写入通过二级缓存的失效频道通知其他实例，其他实例从主库读取该游戏的标签后更新索引
+ */
+@Slf4j
+@Component
+public class GameTagIndex implements MessageListener {
+
+    public static final String MODE_ANY = "any";
+    public static final String MODE_ALL = "all";
+
+    /**
+     * 失效频道上索引消息的名称，消息键为 实例ID:游戏ID
+     */
+    static final String INDEX_NAME = "game_tag_index";
+
+    @Resource
+    private GameTagRelationMapper mapper;
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+    @Resource
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    /**
+     * 本实例ID，收到自己发出的消息时忽略
+     */
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 当前提供查询的索引
+     */
+    private Map<BigInteger, RoaringBitmap> current = new HashMap<>();
+
+    /**
+     * 重建期间的写入，扫描结束后按顺序重放到新索引再替换，避免被扫描到的旧数据覆盖；不在重建时为null
+     */
+    private List<Consumer<Map<BigInteger, RoaringBitmap>>> pendingWrites;
+
+    private volatile boolean ready = false;
+
+    /**
+     * 是否出现过超出int范围的游戏ID，游戏ID自增，出现后不再恢复
+     */
+    private volatile boolean overflow = false;
+
+    @PostConstruct
+    public void subscribe() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(TwoLevelCache.CHANNEL));
+    }
+
+    public boolean isReady() {
+        return ready && !overflow;
+    }
+
+    /**
+     * 为游戏添加标签
+     */
+    public void addTags(BigInteger gameId, Collection<BigInteger> tagIds) {
+        if (!fitsInt(gameId)) {
+            markOverflow(gameId);
+            return;
+        }
+        int id = gameId.intValue();
+        List<BigInteger> ids = new ArrayList<>(tagIds);
+        write(index -> {
+            for (BigInteger tagId : ids) {
+                index.computeIfAbsent(tagId, k -> new RoaringBitmap()).add(id);
+            }
+        });
+        publish(gameId);
+    }
+
+    /**
+     * 移除游戏上不在列表中的标签
+     */
+    public void retainTags(BigInteger gameId, Collection<BigInteger> tagIds) {
+        // 超出范围的游戏从未写入索引，不需要移除
+        if (!fitsInt(gameId)) {
+            return;
+        }
+        int id = gameId.intValue();
+        Set<BigInteger> keep = new HashSet<>(tagIds);
+        write(index -> removeFrom(index, id, keep));
+        publish(gameId);
+    }
+
+    private void write(Consumer<Map<BigInteger, RoaringBitmap>> write) {
+        lock.writeLock().lock();
+        try {
+            write.accept(current);
+            if (pendingWrites != null) {
+                pendingWrites.add(write);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 游戏删除后从所有标签中移除
+     */
+    public void removeGame(BigInteger gameId) {
+        retainTags(gameId, Collections.emptySet());
+    }
+
+    /**
+     * 按标签筛选游戏
+     *
+     * @param tagIds 标签ID列表
+     * @param mode   any-包含任一标签 all-包含全部标签
+     * @return 命中的游戏ID位图，调用方可以继续修改
+     */
+    public RoaringBitmap query(Collection<BigInteger> tagIds, String mode) {
+        boolean all = MODE_ALL.equals(mode);
+        lock.readLock().lock();
+        try {
+            List<RoaringBitmap> bitmaps = new ArrayList<>();
+            for (BigInteger tagId : new HashSet<>(tagIds)) {
+                RoaringBitmap bitmap = current.get(tagId);
+                if (bitmap == null || bitmap.isEmpty()) {
+                    if (all) {
+                        return new RoaringBitmap();
+                    }
+                    continue;
+                }
+                bitmaps.add(bitmap);
+            }
+            if (bitmaps.isEmpty()) {
+                return new RoaringBitmap();
+            }
+            if (!all) {
+                return RoaringBitmap.or(bitmaps.iterator());
+            }
+            // 从基数最小的位图开始求交集
+            bitmaps.sort(Comparator.comparingInt(RoaringBitmap::getCardinality));
+            RoaringBitmap result = bitmaps.get(0).clone();
+            for (int i = 1; i < bitmaps.size() && !result.isEmpty(); i++) {
+                result.and(bitmaps.get(i));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 从位图中按偏移量取一页游戏ID
+     */
+    public static List<BigInteger> page(RoaringBitmap bitmap, int offset, int limit) {
+        List<BigInteger> result = new ArrayList<>(limit);
+        if (offset >= bitmap.getCardinality()) {
+            return result;
+        }
+        return pageAfter(bitmap, bitmap.select(offset) - 1, limit);
+    }
+
+    /**
+     * 从位图中取id大于lastId的一页游戏ID
+     */
+    public static List<BigInteger> pageAfter(RoaringBitmap bitmap, long lastId, int limit) {
+        List<BigInteger> result = new ArrayList<>(limit);
+        if (lastId >= Integer.MAX_VALUE) {
+            return result;
+        }
+        PeekableIntIterator iterator = bitmap.getIntIterator();
+        iterator.advanceIfNeeded((int) lastId + 1);
+        while (iterator.hasNext() && result.size() < limit) {
+            result.add(BigInteger.valueOf(iterator.next()));
+        }
+        return result;
+    }
+
+    /**
+     * 由游戏ID列表构建位图，用于和标签筛选结果求交集
+     * 超出int范围的ID不会出现在标签筛选结果中，直接跳过
+     */
+    public static RoaringBitmap bitmapOf(Collection<BigInteger> gameIds) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (BigInteger gameId : gameIds) {
+            if (fitsInt(gameId)) {
+                bitmap.add(gameId.intValue());
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * 全量重建索引
+     * 启动时执行一次，之后低频定时执行，用于修复丢失消息等原因造成的偏差
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${game.tag-index.rebuild-interval:3600000}")
+    @DataSource(DataSourceType.SLAVE)
+    public void rebuild() {
+        long startTime = System.currentTimeMillis();
+        Map<BigInteger, RoaringBitmap> index = new HashMap<>();
+        lock.writeLock().lock();
+        try {
+            pendingWrites = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            // 扫描期间index只由本线程访问，不需要加锁
+            mapper.scanLiveRelations(context -> {
+                GameTagRelation relation = context.getResultObject();
+                if (!fitsInt(relation.getGameId())) {
+                    markOverflow(relation.getGameId());
+                    return;
+                }
+                index.computeIfAbsent(relation.getTagId(), k -> new RoaringBitmap()).add(relation.getGameId().intValue());
+            });
+            for (RoaringBitmap bitmap : index.values()) {
+                bitmap.runOptimize();
+            }
+            int replayed;
+            lock.writeLock().lock();
+            try {
+                // 扫描期间的写入可能早于从库中读到的数据，重放后再替换
+                for (Consumer<Map<BigInteger, RoaringBitmap>> write : pendingWrites) {
+                    write.accept(index);
+                }
+                replayed = pendingWrites.size();
+                current = index;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ready = true;
+            log.info("游戏标签位图索引构建完成，标签数: {}, 重放写入: {}, 耗时: {}ms",
+                    index.size(), replayed, System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            log.error("游戏标签位图索引构建失败: {}", e.getMessage(), e);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pendingWrites = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * 其他实例写入后，从主库读取该游戏的标签并替换本实例索引中的标签
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        TwoLevelCache.Invalidation invalidation = TwoLevelCache.decode(message);
+        if (invalidation == null || !INDEX_NAME.equals(invalidation.name())) {
+            return;
+        }
+        int index = invalidation.key().lastIndexOf(':');
+        if (index < 0 || instanceId.equals(invalidation.key().substring(0, index))) {
+            return;
+        }
+        try {
+            BigInteger gameId = new BigInteger(invalidation.key().substring(index + 1));
+            if (!fitsInt(gameId)) {
+                markOverflow(gameId);
+                return;
+            }
+            List<BigInteger> tagIds;
+            DataSourceContextHolder.push(DataSourceType.MASTER);
+            try {
+                tagIds = mapper.getTagIdsByGameId(gameId);
+            } finally {
+                DataSourceContextHolder.pop();
+            }
+            int id = gameId.intValue();
+            Set<BigInteger> keep = new HashSet<>(tagIds);
+            write(current -> {
+                removeFrom(current, id, keep);
+                for (BigInteger tagId : keep) {
+                    current.computeIfAbsent(tagId, k -> new RoaringBitmap()).add(id);
+                }
+            });
+        } catch (Exception e) {
+            log.warn("同步游戏标签索引失败，消息: {}, 原因: {}", invalidation.key(), e.getMessage());
+        }
+    }
+
+    private void publish(BigInteger gameId) {
+        try {
+            stringRedisTemplate.convertAndSend(TwoLevelCache.CHANNEL, TwoLevelCache.encode(INDEX_NAME, instanceId + ":" + gameId));
+        } catch (Exception e) {
+            log.warn("发布游戏标签索引消息失败，游戏: {}, 原因: {}", gameId, e.getMessage());
+        }
+    }
+
+    private static void removeFrom(Map<BigInteger, RoaringBitmap> index, int gameId, Set<BigInteger> keep) {
+        for (Map.Entry<BigInteger, RoaringBitmap> entry : index.entrySet()) {
+            if (!keep.contains(entry.getKey())) {
+                entry.getValue().remove(gameId);
+            }
+        }
+    }
+
+    static boolean fitsInt(BigInteger gameId) {
+        return gameId != null && gameId.signum() >= 0 && gameId.bitLength() < Integer.SIZE;
+    }
+
+    private void markOverflow(BigInteger gameId) {
+        if (!overflow) {
+            overflow = true;
+            log.warn("游戏ID超出位图索引范围，标签筛选改为查询数据库: {}", gameId);
+        }
+    }
+}
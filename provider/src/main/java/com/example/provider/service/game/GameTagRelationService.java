@@ -4,13 +4,17 @@ package com.example.provider.service.game;
 import com.example.common.annotations.DataSource;
 import com.example.common.config.mysql.DataSourceType;
 import com.example.common.entity.GameTagRelation;
+import com.example.common.utils.TransactionUtils;
 import com.example.provider.mapper.game.GameTagRelationMapper;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Slf4j
 @Service
@@ -19,6 +23,9 @@ public class GameTagRelationService {
     @Resource
     private GameTagRelationMapper mapper;
 
+    @Resource
+    private GameTagIndex gameTagIndex;
+
     /**
      * 根据游戏ID获取标签关系
      */
@@ -35,6 +42,14 @@ public class GameTagRelationService {
         return mapper.getByGameIdAndTagId(gameId, tagId);
     }
 
+    /**
+     * 根据游戏ID列表获取标签关系
+     */
+    @DataSource(DataSourceType.SLAVE)
+    public List<GameTagRelation> getByGameIds(List<BigInteger> gameIds) {
+        return mapper.getByGameIds(gameIds);
+    }
+
     /**
      * 根据游戏ID获取标签ID列表
      */
@@ -43,6 +58,14 @@ public class GameTagRelationService {
         return mapper.getTagIdsByGameId(gameId);
     }
 
+    /**
+     * 从主库读取游戏的标签ID列表，用于缓存未命中时加载，避免从库延迟把旧数据写回缓存
+     */
+    @DataSource(DataSourceType.MASTER)
+    public List<BigInteger> loadTagIdsByGameId(BigInteger gameId) {
+        return mapper.getTagIdsByGameId(gameId);
+    }
+
     /**
      * 创建游戏标签关系
      */
@@ -63,7 +86,47 @@ public class GameTagRelationService {
                 .setUpdateTime(currentTime)
                 .setIsDeleted(0);
 
-        return mapper.insert(relation);
+        int result = mapper.insert(relation);
+        TransactionUtils.afterCommit(() -> gameTagIndex.addTags(gameId, List.of(tagId)));
+        return result;
+    }
+
+    /**
+     * 批量创建游戏标签关系，已存在的关系跳过
+     * 之前删除过的关系先恢复原记录，仍然缺少的再插入，避免反复编辑时堆积已删除的记录
+     */
+    @DataSource(DataSourceType.MASTER)
+    public int batchCreate(BigInteger gameId, List<BigInteger> tagIds) {
+        if (tagIds == null || tagIds.isEmpty()) {
+            return 0;
+        }
+        Set<BigInteger> exist = new HashSet<>(mapper.getTagIdsByGameId(gameId));
+        List<BigInteger> newTagIds = new ArrayList<>();
+        for (BigInteger tagId : tagIds) {
+            if (!exist.contains(tagId) && !newTagIds.contains(tagId)) {
+                newTagIds.add(tagId);
+            }
+        }
+        if (newTagIds.isEmpty()) {
+            return 0;
+        }
+        int currentTime = (int) (System.currentTimeMillis() / 1000);
+        int result = mapper.batchRestore(gameId, newTagIds, currentTime);
+        List<BigInteger> insertTagIds = newTagIds;
+        if (result > 0) {
+            Set<BigInteger> restored = new HashSet<>(mapper.getTagIdsByGameId(gameId));
+            insertTagIds = new ArrayList<>();
+            for (BigInteger tagId : newTagIds) {
+                if (!restored.contains(tagId)) {
+                    insertTagIds.add(tagId);
+                }
+            }
+        }
+        if (!insertTagIds.isEmpty()) {
+            result += mapper.batchInsert(gameId, insertTagIds, currentTime);
+        }
+        TransactionUtils.afterCommit(() -> gameTagIndex.addTags(gameId, newTagIds));
+        return result;
     }
 
     /**
@@ -73,5 +136,6 @@ public class GameTagRelationService {
     public void deleteNotInTagIds(BigInteger gameId, List<BigInteger> tagIds) {
         int currentTime = (int) (System.currentTimeMillis() / 1000);
         mapper.batchDeleteByGameIdAndNotInTagIds(gameId, tagIds, currentTime);
+        TransactionUtils.afterCommit(() -> gameTagIndex.retainTags(gameId, tagIds));
     }
 }
\ No newline at end of file
@@ -0,0 +1,159 @@
+package com.example.provider.service.game;
+
+import com.example.common.config.mysql.DataSourceContextHolder;
+import com.example.common.config.mysql.DataSourceType;
+import com.example.common.config.thread.BlockingExecutors;
+import com.example.common.entity.Game;
+import com.example.provider.mapper.game.GameMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.Data;
+import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 历史游戏封面和图片元数据回填任务
+ * 在后台线程中按id分批处理，每条单独提交，进度保存在本实例内存中
+ * 只处理封面为空的游戏，中断后重新启动即可继续
+ */
+@Slf4j
+@Component
+public class ImageMetaBackfill {
+
+    @Resource
+    private GameMapper mapper;
+    @Resource
+    private GameDetailCache gameDetailCache;
+    @Resource
+    private GameListCache gameListCache;
+    @Resource
+    private BlockingExecutors blockingExecutors;
+
+    private AsyncTaskExecutor executor;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    private volatile Progress progress = new Progress();
+
+    @PostConstruct
+    public void init() {
+        executor = blockingExecutors.create("image-meta-backfill", 1);
+    }
+
+    /**
+     * 启动回填，已在执行时不重复启动
+     *
+     * @param batchSize 每批读取的游戏数
+     * @return 当前进度
+     */
+    public Progress start(Integer batchSize) {
+        if (!running.compareAndSet(false, true)) {
+            return getProgress();
+        }
+        progress = new Progress().setRunning(true).setBatchSize(batchSize).setStartTime(System.currentTimeMillis());
+        try {
+            executor.execute(() -> run(batchSize));
+        } catch (Exception e) {
+            finish(e);
+            throw new RuntimeException("启动回填任务失败");
+        }
+        return getProgress();
+    }
+
+    /**
+     * 获取进度快照
+     */
+    public Progress getProgress() {
+        Progress current = progress;
+        synchronized (current) {
+            return new Progress()
+                    .setRunning(current.isRunning())
+                    .setBatchSize(current.getBatchSize())
+                    .setProcessed(current.getProcessed())
+                    .setUpdated(current.getUpdated())
+                    .setLastId(current.getLastId())
+                    .setStartTime(current.getStartTime())
+                    .setEndTime(current.getEndTime())
+                    .setError(current.getError());
+        }
+    }
+
+    private void run(Integer batchSize) {
+        int updated = 0;
+        Exception error = null;
+        DataSourceContextHolder.push(DataSourceType.MASTER);
+        try {
+            BigInteger lastId = BigInteger.ZERO;
+            List<Game> games = mapper.getWithoutImageMeta(lastId, batchSize);
+            while (!games.isEmpty()) {
+                for (Game game : games) {
+                    lastId = game.getId();
+                    GameImageMeta.apply(game);
+                    if (game.getCover() != null && mapper.updateImageMeta(game) > 0) {
+                        gameDetailCache.invalidate(game.getId());
+                        updated++;
+                    }
+                }
+                Progress current = progress;
+                synchronized (current) {
+                    current.setProcessed(current.getProcessed() + games.size())
+                            .setUpdated(updated)
+                            .setLastId(lastId);
+                }
+                log.info("游戏图片元数据回填进度，已处理: {}, 已回填: {}, lastId: {}", current.getProcessed(), updated, lastId);
+                games = mapper.getWithoutImageMeta(lastId, batchSize);
+            }
+            log.info("游戏图片元数据回填完成，数量: {}", updated);
+        } catch (Exception e) {
+            error = e;
+            log.error("游戏图片元数据回填失败: {}", e.getMessage(), e);
+        } finally {
+            DataSourceContextHolder.pop();
+            if (updated > 0) {
+                gameListCache.invalidateAll();
+            }
+            finish(error);
+        }
+    }
+
+    private void finish(Exception e) {
+        Progress current = progress;
+        synchronized (current) {
+            current.setRunning(false)
+                    .setEndTime(System.currentTimeMillis())
+                    .setError(e != null ? e.getMessage() : null);
+        }
+        running.set(false);
+    }
+
+    /**
+     * 回填进度
+     */
+    @Data
+    @Accessors(chain = true)
+    public static class Progress {
+        private boolean running;
+        private Integer batchSize;
+        /**
+         * 已读取的游戏数
+         */
+        private int processed;
+        /**
+         * 已回填的游戏数
+         */
+        private int updated;
+        /**
+         * 最后处理的游戏ID，重新启动时从头扫描，已回填的游戏不会再被读取
+         */
+        private BigInteger lastId;
+        private Long startTime;
+        private Long endTime;
+        private String error;
+    }
+}
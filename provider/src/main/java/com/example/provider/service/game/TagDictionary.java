@@ -0,0 +1,262 @@
+package com.example.provider.service.game;
+
+import com.example.common.cache.CacheNames;
+import com.example.common.entity.Tag;
+import com.example.provider.mapper.game.TagMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 标签字典本地缓存
+ * 缓存 id -> 标签 和 名称 -> id，容量有上限，按最近访问淘汰
+ * 标签修改后通过Redis发布失效消息，所有实例同时清除对应条目
+ */
+@Slf4j
+@Component
+public class TagDictionary implements MessageListener {
+
+    @Resource
+    private TagMapper mapper;
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+    @Resource
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${tag.dictionary.max-size:10000}")
+    private int maxSize;
+
+    private final Map<BigInteger, Tag> byId = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<BigInteger, Tag> eldest) {
+            if (size() > maxSize) {
+                byName.remove(eldest.getValue().getName());
+                complete = false;
+                return true;
+            }
+            return false;
+        }
+    };
+    private final Map<String, BigInteger> byName = new HashMap<>();
+
+    /**
+     * 是否缓存了全部标签，为true时列表查询不再访问数据库
+     */
+    private boolean complete = false;
+
+    /**
+     * 失效次数，读取数据库前记录，写回时已发生过失效则丢弃读取结果，避免旧数据在失效后写入缓存
+     */
+    private long generation = 0;
+
+    @PostConstruct
+    public void subscribe() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(CacheNames.TAG_DICTIONARY_CHANNEL));
+    }
+
+    /**
+     * 根据ID获取标签，未命中时查询数据库
+     */
+    public Tag getById(BigInteger id) {
+        if (id == null) {
+            return null;
+        }
+        long loadGeneration;
+        synchronized (this) {
+            Tag tag = byId.get(id);
+            if (tag != null) {
+                return tag;
+            }
+            loadGeneration = generation;
+        }
+        Tag tag = mapper.getById(id);
+        if (tag != null) {
+            put(tag, loadGeneration);
+        }
+        return tag;
+    }
+
+    /**
+     * 根据ID列表获取标签，未命中的部分一次查询数据库，按传入顺序返回
+     */
+    public List<Tag> getByIds(Collection<BigInteger> ids) {
+        List<Tag> result = new ArrayList<>();
+        if (ids == null || ids.isEmpty()) {
+            return result;
+        }
+        Map<BigInteger, Tag> found = new HashMap<>();
+        List<BigInteger> missIds = new ArrayList<>();
+        long loadGeneration;
+        synchronized (this) {
+            for (BigInteger id : ids) {
+                Tag tag = byId.get(id);
+                if (tag != null) {
+                    found.put(id, tag);
+                } else if (!missIds.contains(id)) {
+                    missIds.add(id);
+                }
+            }
+            loadGeneration = generation;
+        }
+        if (!missIds.isEmpty()) {
+            List<Tag> loaded = mapper.getByIds(missIds);
+            synchronized (this) {
+                for (Tag tag : loaded) {
+                    putIfCurrent(tag, loadGeneration);
+                }
+            }
+            for (Tag tag : loaded) {
+                found.put(tag.getId(), tag);
+            }
+        }
+        for (BigInteger id : ids) {
+            Tag tag = found.get(id);
+            if (tag != null) {
+                result.add(tag);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 根据名称获取标签，未命中时查询数据库
+     */
+    public Tag getByName(String name) {
+        if (name == null) {
+            return null;
+        }
+        long loadGeneration;
+        synchronized (this) {
+            BigInteger id = byName.get(name);
+            if (id != null) {
+                Tag tag = byId.get(id);
+                if (tag != null) {
+                    return tag;
+                }
+            }
+            loadGeneration = generation;
+        }
+        Tag tag = mapper.getByName(name);
+        if (tag != null) {
+            put(tag, loadGeneration);
+        }
+        return tag;
+    }
+
+    /**
+     * 获取全部标签，按创建时间倒序
+     * 标签总数不超过容量时整体缓存，之后在内存中按关键词过滤
+     */
+    public List<Tag> getAll(String keyword) {
+        List<Tag> all;
+        long loadGeneration;
+        synchronized (this) {
+            all = complete ? new ArrayList<>(byId.values()) : null;
+            loadGeneration = generation;
+        }
+        if (all == null) {
+            all = mapper.getAllTag(null);
+            if (all.size() <= maxSize) {
+                synchronized (this) {
+                    if (loadGeneration == generation) {
+                        for (Tag tag : all) {
+                            putLocked(tag);
+                        }
+                        complete = true;
+                    }
+                }
+            }
+        }
+        List<Tag> result = new ArrayList<>();
+        for (Tag tag : all) {
+            if (keyword == null || keyword.isEmpty() || (tag.getName() != null && tag.getName().contains(keyword))) {
+                result.add(tag);
+            }
+        }
+        result.sort(Comparator.comparing(Tag::getCreateTime, Comparator.nullsLast(Comparator.reverseOrder())));
+        return result;
+    }
+
+    /**
+     * 写入刚从数据库读取的标签，读取期间发生过失效时不写入
+     *
+     * @param loadGeneration 读取数据库前记录的失效次数
+     */
+    private synchronized void put(Tag tag, long loadGeneration) {
+        putIfCurrent(tag, loadGeneration);
+    }
+
+    private void putIfCurrent(Tag tag, long loadGeneration) {
+        if (loadGeneration == generation) {
+            putLocked(tag);
+        }
+    }
+
+    /**
+     * 发布标签失效消息，各实例(包括本实例)收到后清除对应条目
+     * 发布失败时至少清除本实例
+     */
+    public void invalidate(Collection<BigInteger> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return;
+        }
+        evict(ids);
+        StringJoiner joiner = new StringJoiner(",");
+        for (BigInteger id : ids) {
+            joiner.add(id.toString());
+        }
+        try {
+            stringRedisTemplate.convertAndSend(CacheNames.TAG_DICTIONARY_CHANNEL, joiner.toString());
+        } catch (Exception e) {
+            log.warn("发布标签失效消息失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        List<BigInteger> ids = new ArrayList<>();
+        for (String id : body.split(",")) {
+            if (!id.isBlank()) {
+                ids.add(new BigInteger(id.trim()));
+            }
+        }
+        evict(ids);
+    }
+
+    private synchronized void evict(Collection<BigInteger> ids) {
+        generation++;
+        for (BigInteger id : ids) {
+            Tag tag = byId.remove(id);
+            if (tag != null) {
+                byName.remove(tag.getName());
+            }
+        }
+        // 新增的标签也通过失效消息通知，全量缓存需要重新加载
+        complete = false;
+    }
+
+    private void putLocked(Tag tag) {
+        if (tag == null || tag.getId() == null) {
+            return;
+        }
+        Tag old = byId.put(tag.getId(), tag);
+        if (old != null && old.getName() != null && !old.getName().equals(tag.getName())) {
+            byName.remove(old.getName());
+        }
+        if (tag.getName() != null) {
+            byName.put(tag.getName(), tag.getId());
+        }
+    }
+}
@@ -2,8 +2,11 @@ package com.example.provider.service.game;
 
 
 import com.example.common.annotations.DataSource;
+import com.example.common.cache.TwoLevelCache;
 import com.example.common.config.mysql.DataSourceType;
+import com.example.common.entity.GameTagRelation;
 import com.example.common.entity.Tag;
+import com.example.common.utils.TransactionUtils;
 import com.example.provider.mapper.game.TagMapper;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
@@ -12,7 +15,11 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
 
 
 @Slf4j
@@ -25,12 +32,18 @@ public class TagService {
     @Resource
     private GameTagRelationService gameTagRelationService;
 
+    @Resource
+    private TagDictionary tagDictionary;
+
+    @Resource(name = "gameTagIdsStore")
+    private TwoLevelCache gameTagIdsStore;
+
     /**
      * 根据ID获取实体
      */
     @DataSource(DataSourceType.SLAVE)
     public Tag getById(BigInteger id) {
-        return mapper.getById(id);
+        return tagDictionary.getById(id);
     }
 
     /**
@@ -54,7 +67,9 @@ public class TagService {
      */
     @DataSource(DataSourceType.MASTER)
     public int update(Tag tag) {
-        return mapper.update(tag);
+        int result = mapper.update(tag);
+        TransactionUtils.afterCommit(() -> tagDictionary.invalidate(List.of(tag.getId())));
+        return result;
     }
 
     /**
@@ -66,7 +81,9 @@ public class TagService {
             throw new RuntimeException("ID 不能为空");
         }
         int time = (int) (System.currentTimeMillis() / 1000);
-        return mapper.delete(id, time);
+        int result = mapper.delete(id, time);
+        TransactionUtils.afterCommit(() -> tagDictionary.invalidate(List.of(id)));
+        return result;
     }
 
     /**
@@ -74,7 +91,7 @@ public class TagService {
      */
     @DataSource(DataSourceType.SLAVE)
     public Tag getByName(String name) {
-        return mapper.getByName(name);
+        return tagDictionary.getByName(name);
     }
 
     /**
@@ -96,6 +113,49 @@ public class TagService {
         return tag;
     }
 
+    /**
+     * 根据标签名称列表批量获取标签，不存在的标签批量创建
+     * 先查询已有标签，只插入不存在的名称；名称按字典序排序后写入，多个事务同时写入时加锁顺序一致
+     * 同名标签有多条时取ID最小的一条
+     */
+    @DataSource(DataSourceType.MASTER)
+    public List<Tag> getOrCreateByNames(List<String> names) {
+        if (names == null || names.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<String> sortedNames = new ArrayList<>(new TreeSet<>(names));
+        Map<String, Tag> tagMap = new HashMap<>();
+        for (Tag tag : mapper.getByNames(sortedNames)) {
+            tagMap.putIfAbsent(tag.getName(), tag);
+        }
+        List<String> newNames = new ArrayList<>();
+        for (String name : sortedNames) {
+            if (!tagMap.containsKey(name)) {
+                newNames.add(name);
+            }
+        }
+        if (!newNames.isEmpty()) {
+            int currentTime = (int) (System.currentTimeMillis() / 1000);
+            mapper.batchInsertByNames(newNames, currentTime);
+            List<BigInteger> newTagIds = new ArrayList<>();
+            for (Tag tag : mapper.getByNames(newNames)) {
+                if (tagMap.putIfAbsent(tag.getName(), tag) == null) {
+                    newTagIds.add(tag.getId());
+                }
+            }
+            // 有新增的标签，通知各实例的标签字典
+            TransactionUtils.afterCommit(() -> tagDictionary.invalidate(newTagIds));
+        }
+        List<Tag> tagList = new ArrayList<>();
+        for (String name : sortedNames) {
+            Tag tag = tagMap.get(name);
+            if (tag != null) {
+                tagList.add(tag);
+            }
+        }
+        return tagList;
+    }
+
     /**
      * 根据游戏ID获取标签列表
      */
@@ -104,8 +164,41 @@ public class TagService {
         if (gameId == null) {
             throw new RuntimeException("游戏ID不能为空");
         }
-        List<BigInteger> tagIds = gameTagRelationService.getTagIdsByGameId(gameId);
-        return mapper.getByIds(tagIds);
+        List<BigInteger> tagIds = gameTagIdsStore.get(gameId.toString(),
+                () -> gameTagRelationService.loadTagIdsByGameId(gameId));
+        return tagDictionary.getByIds(tagIds);
+    }
+
+    /**
+     * 根据游戏ID列表批量获取标签列表
+     * 返回 游戏ID -> 标签列表，没有标签的游戏对应空列表
+     */
+    @DataSource(DataSourceType.SLAVE)
+    public Map<BigInteger, List<Tag>> getTagsByGameIds(List<BigInteger> gameIds) {
+        Map<BigInteger, List<Tag>> result = new LinkedHashMap<>();
+        if (gameIds == null || gameIds.isEmpty()) {
+            return result;
+        }
+        for (BigInteger gameId : gameIds) {
+            result.put(gameId, new ArrayList<>());
+        }
+        // 只查关联表，标签从字典中取
+        List<GameTagRelation> relations = gameTagRelationService.getByGameIds(gameIds);
+        List<BigInteger> tagIds = new ArrayList<>();
+        for (GameTagRelation relation : relations) {
+            tagIds.add(relation.getTagId());
+        }
+        Map<BigInteger, Tag> tagMap = new HashMap<>();
+        for (Tag tag : tagDictionary.getByIds(tagIds)) {
+            tagMap.put(tag.getId(), tag);
+        }
+        for (GameTagRelation relation : relations) {
+            Tag tag = tagMap.get(relation.getTagId());
+            if (tag != null) {
+                result.computeIfAbsent(relation.getGameId(), k -> new ArrayList<>()).add(tag);
+            }
+        }
+        return result;
     }
 
     /**
@@ -113,7 +206,7 @@ public class TagService {
      */
     @DataSource(DataSourceType.SLAVE)
     public List<Tag> getAllTag(String keyword) {
-        return mapper.getAllTag(keyword);
+        return tagDictionary.getAll(keyword);
     }
 
     /**
@@ -128,29 +221,30 @@ public class TagService {
         if (gameId == null) {
             throw new RuntimeException("游戏ID不能为空");
         }
-        List<BigInteger> tagIdList = new ArrayList<>();
+        List<String> tagNames = new ArrayList<>();
         if (tags != null && !tags.isEmpty()) {
             // 解析标签字符串
-            String[] tagArray = tags.split(",");
-            for (String tagName : tagArray) {
+            for (String tagName : tags.split(",")) {
                 tagName = tagName.trim();
                 if (!tagName.isEmpty()) {
-                    // 获取或创建标签
-                    Tag tag = getOrCreateByName(tagName);
-                    if (tag != null && tag.getId() != null) {
-                        tagIdList.add(tag.getId());
-
-                        // 创建关联关系
-                        gameTagRelationService.create(gameId, tag.getId());
-                    }
+                    tagNames.add(tagName);
                 }
             }
         }
 
+        // 批量获取或创建标签，再批量创建关联关系
+        List<BigInteger> tagIdList = new ArrayList<>();
+        for (Tag tag : getOrCreateByNames(tagNames)) {
+            tagIdList.add(tag.getId());
+        }
+        tagIdList.sort(null);
+        gameTagRelationService.batchCreate(gameId, tagIdList);
+
         // 删除不再使用的标签关联
         if (!tagIdList.isEmpty()) {
             gameTagRelationService.deleteNotInTagIds(gameId, tagIdList);
         }
+        TransactionUtils.afterCommit(() -> gameTagIdsStore.evict(gameId.toString()));
     }
 
 }
\ No newline at end of file
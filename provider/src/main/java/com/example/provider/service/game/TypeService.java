@@ -1,39 +1,74 @@
 package com.example.provider.service.game;
 
 import com.example.common.annotations.DataSource;
+import com.example.common.cache.TwoLevelCache;
+import com.example.common.config.mysql.DataSourceContextHolder;
 import com.example.common.config.mysql.DataSourceType;
 import com.example.common.entity.Type;
+import com.example.common.utils.TransactionUtils;
 import com.example.provider.mapper.game.TypeMapper;
 import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 
+@Slf4j
 @Service
 public class TypeService {
+    /**
+     * 类型树版本号，任一实例修改类型后递增，其他实例据此刷新快照
+     */
+    private static final String VERSION_KEY = "type_tree_version";
+
+    /**
+     * 全部类型在二级缓存中的键，多个实例刷新快照时只有一个需要查询数据库
+     */
+    private static final String ALL_TYPES_KEY = "all";
+
     @Resource
     private TypeMapper mapper;
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+    @Resource(name = "typeStore")
+    private TwoLevelCache typeStore;
+    @Resource
+    private GameListCache gameListCache;
+
+    /**
+     * 当前类型树快照，为空表示尚未加载
+     */
+    private volatile TypeSnapshot snapshot;
+
+    /**
+     * 加载快照时持有，加载过程会访问Redis和数据库，使用ReentrantLock避免虚拟线程被固定
+     */
+    private final ReentrantLock snapshotLock = new ReentrantLock();
 
     @DataSource(DataSourceType.SLAVE)
     public Type getById(BigInteger id) {
-        return mapper.getById(id);
+        return getSnapshot().getById(id);
     }
 
     @DataSource(DataSourceType.SLAVE)
     public List<Type> getTypeByIds(Set<BigInteger> typeIdSet) {
-        StringBuilder typeIdList = new StringBuilder();
-        for (BigInteger bigInteger : typeIdSet) {
-            if (!typeIdList.isEmpty()) {
-                typeIdList.append(",");
+        TypeSnapshot current = getSnapshot();
+        List<Type> result = new ArrayList<>();
+        for (BigInteger id : typeIdSet) {
+            Type type = current.getById(id);
+            if (type != null) {
+                result.add(type);
             }
-            typeIdList.append(bigInteger.toString());
         }
-        String ids = typeIdList.toString();
-
-        return mapper.getTypeByIds(ids);
+        return result;
     }
 
 
@@ -61,22 +96,32 @@ public class TypeService {
             throw new RuntimeException("id 不能为空");
         }
         int time = (int) (System.currentTimeMillis() / 1000);
-        return mapper.delete(id, time);
+        int result = mapper.delete(id, time);
+        TransactionUtils.afterCommit(this::publishChange);
+        return result;
     }
 
     @DataSource(DataSourceType.SLAVE)
     public List<Type> getAllType(String keyword) {
-        return mapper.getAllType(keyword);
+        return getSnapshot().getAll();
     }
 
     @DataSource(DataSourceType.SLAVE)
     public List<Type> getParentTypeList(String keyword) {
-        return mapper.getParentTypeList(keyword);
+        List<Type> result = new ArrayList<>();
+        String lowerKeyword = keyword == null ? "" : keyword.toLowerCase(Locale.ROOT);
+        for (Type type : getSnapshot().getRoots()) {
+            if (type.getParentId() == null && type.getTypeName() != null
+                    && type.getTypeName().toLowerCase(Locale.ROOT).contains(lowerKeyword)) {
+                result.add(type);
+            }
+        }
+        return result;
     }
 
     @DataSource(DataSourceType.SLAVE)
     public List<Type> getChildrenList(BigInteger id) {
-        return mapper.getChildrenTypeList(id);
+        return getSnapshot().getChildren(id);
     }
 
     @DataSource(DataSourceType.SLAVE)
@@ -114,18 +159,117 @@ public class TypeService {
             }
 
         }
+        TransactionUtils.afterCommit(this::publishChange);
         return type.getId();
     }
 
     @DataSource(DataSourceType.SLAVE)
     public List<BigInteger> getTypeIdList(String keyword) {
-        return mapper.getTypeIdList(keyword);
+        return getSnapshot().matchName(keyword);
     }
 
     @DataSource(DataSourceType.SLAVE)
     public List<Type> getRootTypes() {
-        return mapper.getRootTypes();
+        return getSnapshot().getRoots();
     }
 
-}
+    /**
+     * 获取类型树快照，首次访问时加载
+     */
+    private TypeSnapshot getSnapshot() {
+        TypeSnapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        snapshotLock.lock();
+        try {
+            if (snapshot == null) {
+                long version = 0;
+                try {
+                    version = readVersion();
+                } catch (Exception e) {
+                    log.warn("读取类型树版本号失败: {}", e.getMessage());
+                }
+                snapshot = loadSnapshot(version);
+            }
+            return snapshot;
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * 定时比对Redis中的版本号，其他实例修改过类型时重新加载快照
+     */
+    @Scheduled(fixedDelayString = "${type.snapshot.check-interval:5000}")
+    public void refreshIfChanged() {
+        TypeSnapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+        long version;
+        try {
+            version = readVersion();
+        } catch (Exception e) {
+            log.warn("读取类型树版本号失败: {}", e.getMessage());
+            return;
+        }
+        if (version != current.getVersion()) {
+            reload(version);
+        }
+    }
+
+    /**
+     * 本实例修改类型后重建快照，并递增版本号通知其他实例
+     */
+    private void publishChange() {
+        typeStore.evict(ALL_TYPES_KEY);
+        gameListCache.onTypeChanged();
+        long version = 0;
+        try {
+            Long result = stringRedisTemplate.opsForValue().increment(VERSION_KEY);
+            version = result == null ? 0 : result;
+        } catch (Exception e) {
+            log.warn("更新类型树版本号失败: {}", e.getMessage());
+        }
+        reload(version);
+    }
+
+    private void reload(long version) {
+        snapshotLock.lock();
+        try {
+            snapshot = loadSnapshot(version);
+            log.info("类型树快照已刷新，版本: {}, 类型数: {}", version, snapshot.getAll().size());
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * 加载指定版本的类型树
+     * 二级缓存中的数据版本不低于要加载的版本时直接使用；否则从主库读取并连同版本号写回，
+     * 避免从延迟的从库读到旧数据后标记为新版本
+     */
+    private TypeSnapshot loadSnapshot(long version) {
+        // 旧格式的缓存数据(不带版本号)按过期处理
+        Object cached = typeStore.getIfPresent(ALL_TYPES_KEY);
+        if (cached instanceof VersionedTypes versioned && versioned.getVersion() >= version && versioned.getTypes() != null) {
+            return TypeSnapshot.of(versioned.getVersion(), versioned.getTypes());
+        }
+        List<Type> types;
+        DataSourceContextHolder.push(DataSourceType.MASTER);
+        try {
+            types = mapper.getAllType(null);
+        } finally {
+            DataSourceContextHolder.pop();
+        }
+        typeStore.put(ALL_TYPES_KEY, new VersionedTypes().setVersion(version).setTypes(types));
+        return TypeSnapshot.of(version, types);
+    }
+
+    private long readVersion() {
+        String value = stringRedisTemplate.opsForValue().get(VERSION_KEY);
+        return value == null ? 0 : Long.parseLong(value);
+    }
 
+}
@@ -0,0 +1,98 @@
+package com.example.provider.service.game;
+
+import com.example.common.entity.Type;
+
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * 类型树快照
+ * 创建后不再修改，更新时整体替换，读取无需加锁
+ */
+public final class TypeSnapshot {
+
+    /**
+     * 快照对应的版本号
+     */
+    private final long version;
+    private final List<Type> all;
+    private final List<Type> roots;
+    private final Map<BigInteger, Type> byId;
+    private final Map<BigInteger, List<Type>> byParent;
+    /**
+     * id -> 小写类型名称，用于关键词匹配类型
+     */
+    private final Map<BigInteger, String> lowerNames;
+
+    private TypeSnapshot(long version, List<Type> types) {
+        List<Type> all = new ArrayList<>(types);
+        all.sort(Comparator.comparing(Type::getId));
+        List<Type> roots = new ArrayList<>();
+        Map<BigInteger, Type> byId = new HashMap<>();
+        Map<BigInteger, List<Type>> byParent = new HashMap<>();
+        Map<BigInteger, String> lowerNames = new LinkedHashMap<>();
+        for (Type type : all) {
+            byId.put(type.getId(), type);
+            if (type.getParentId() == null || BigInteger.ZERO.equals(type.getParentId())) {
+                roots.add(type);
+            } else {
+                byParent.computeIfAbsent(type.getParentId(), k -> new ArrayList<>()).add(type);
+            }
+            if (type.getTypeName() != null) {
+                lowerNames.put(type.getId(), type.getTypeName().toLowerCase(Locale.ROOT));
+            }
+        }
+        byParent.replaceAll((k, v) -> Collections.unmodifiableList(v));
+
+        this.version = version;
+        this.all = Collections.unmodifiableList(all);
+        this.roots = Collections.unmodifiableList(roots);
+        this.byId = Collections.unmodifiableMap(byId);
+        this.byParent = Collections.unmodifiableMap(byParent);
+        this.lowerNames = Collections.unmodifiableMap(lowerNames);
+    }
+
+    /**
+     * 根据全部有效类型构建快照
+     */
+    public static TypeSnapshot of(long version, List<Type> types) {
+        return new TypeSnapshot(version, types);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Type> getAll() {
+        return all;
+    }
+
+    public List<Type> getRoots() {
+        return roots;
+    }
+
+    public Type getById(BigInteger id) {
+        return id == null ? null : byId.get(id);
+    }
+
+    public List<Type> getChildren(BigInteger parentId) {
+        return byParent.getOrDefault(parentId, Collections.emptyList());
+    }
+
+    /**
+     * 名称包含关键词的类型ID，忽略大小写
+     */
+    public List<BigInteger> matchName(String keyword) {
+        List<BigInteger> result = new ArrayList<>();
+        if (keyword == null || keyword.isEmpty()) {
+            return result;
+        }
+        String lowerKeyword = keyword.toLowerCase(Locale.ROOT);
+        for (Map.Entry<BigInteger, String> entry : lowerNames.entrySet()) {
+            if (entry.getValue().contains(lowerKeyword)) {
+                result.add(entry.getKey());
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.provider.service.game;
+
+import com.example.common.entity.Type;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.util.List;
+
+/**
+ * 二级缓存中的全部类型，带加载时的类型树版本号
+ * 读取时版本号低于当前版本的数据视为过期
+ */
+@Data
+@Accessors(chain = true)
+public class VersionedTypes {
+    private long version;
+    private List<Type> types;
+}
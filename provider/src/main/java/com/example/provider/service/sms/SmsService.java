@@ -7,21 +7,23 @@ import com.aliyun.dysmsapi20170525.models.SendSmsResponse;
 import com.aliyun.teaopenapi.models.Config;
 import com.example.common.annotations.DataSource;
 import com.example.common.config.mysql.DataSourceType;
+import com.example.common.config.thread.BlockingExecutors;
 import com.example.common.entity.Sms;
 import com.example.common.entity.SmsTaskCrond;
 import com.example.common.utils.BaseUtils;
 import com.example.provider.mapper.sms.SmsMapper;
 import com.example.provider.mapper.sms.SmsTaskCrondMapper;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
 
 @Slf4j
@@ -41,11 +43,27 @@ public class SmsService {
     @Resource
     private SmsTaskCrondMapper smsTaskCrondMapper;
 
-    private final ExecutorService executorService = Executors.newFixedThreadPool(10);
+    @Resource
+    private BlockingExecutors blockingExecutors;
+
+    /**
+     * 批量发送时同时调用短信接口的最大数量，按短信服务的并发限制配置
+     */
+    @Value("${sms.send.max-concurrency:10}")
+    private int maxConcurrency;
+
+    private AsyncTaskExecutor executorService;
+    private Semaphore sendPermits;
 
     String templateCode = "SMS_154950909";
     String templateName = "阿里云短信测试";
 
+    @PostConstruct
+    public void init() {
+        executorService = blockingExecutors.create("sms-send", maxConcurrency);
+        sendPermits = new Semaphore(maxConcurrency);
+    }
+
     /**
      * 创建阿里云短信客户端
      */
@@ -104,21 +122,17 @@ public class SmsService {
     }
 
     /**
-     * 多线程批量发送短信，使用StringBuilder收集结果
+     * 多线程批量发送短信，按手机号顺序拼接结果
+     * 每个任务返回自己的结果，不在锁内拼接，避免虚拟线程被固定在平台线程上
      */
     @DataSource(DataSourceType.MASTER)
     public String sendSmsMultiThread(List<String> phoneList, String templateParam) {
-        StringBuilder result = new StringBuilder();
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        List<CompletableFuture<String>> futures = new ArrayList<>();
 
         for (String phone : phoneList) {
-            CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
-                boolean success = sendSms(phone, templateParam);
-                synchronized (result) {
-                    result.append("手机号: ").append(phone)
-                            .append(", 发送结果: ").append(success ? "成功" : "失败")
-                            .append("\n");
-                }
+            CompletableFuture<String> future = CompletableFuture.supplyAsync(() -> {
+                boolean success = sendSmsLimited(phone, templateParam);
+                return "手机号: " + phone + ", 发送结果: " + (success ? "成功" : "失败") + "\n";
             }, executorService);
             futures.add(future);
         }
@@ -126,9 +140,31 @@ public class SmsService {
         // 等待所有任务完成
         CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
 
+        StringBuilder result = new StringBuilder();
+        for (CompletableFuture<String> future : futures) {
+            result.append(future.join());
+        }
         return result.toString();
     }
 
+    /**
+     * 获取发送许可后发送短信，限制同时调用短信接口的数量
+     */
+    private boolean sendSmsLimited(String phone, String templateParam) {
+        try {
+            sendPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("等待短信发送许可被中断，手机号: {}", phone);
+            return false;
+        }
+        try {
+            return sendSms(phone, templateParam);
+        } finally {
+            sendPermits.release();
+        }
+    }
+
     /**
      * 根据手机号查询短信记录
      */
@@ -0,0 +1,7 @@
+-- 游戏封面和图片元数据列，GameMapper 的写入、getWithoutImageMeta、updateImageMeta 依赖
+-- 历史数据由 POST /game/imageMeta/backfill 在后台回填，进度见 /game/imageMeta/backfill/progress
+ALTER TABLE game
+    ADD COLUMN cover        varchar(512) NULL COMMENT '封面图片地址，取图片列表第一张',
+    ADD COLUMN cover_width  int          NULL COMMENT '封面宽度',
+    ADD COLUMN cover_height int          NULL COMMENT '封面高度',
+    ADD COLUMN image_meta   text         NULL COMMENT '图片元数据JSON: [{"src","width","height"}]';
@@ -0,0 +1,197 @@
+package com.example.provider.service.game;
+
+import com.example.common.entity.Game;
+import com.example.provider.mapper.game.GameMapper;
+import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigInteger;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class GameSearchIndexTests {
+
+    private static final BigInteger TYPE_A = BigInteger.valueOf(100);
+    private static final BigInteger TYPE_B = BigInteger.valueOf(200);
+
+    private static BigInteger id(long id) {
+        return BigInteger.valueOf(id);
+    }
+
+    private static List<BigInteger> ids(long... ids) {
+        List<BigInteger> list = new ArrayList<>();
+        for (long id : ids) {
+            list.add(id(id));
+        }
+        return list;
+    }
+
+    private static List<BigInteger> search(GameSearchIndex.Segment segment, String keyword) {
+        return segment.search(GameSearchIndex.normalize(keyword), null, null);
+    }
+
+    @Test
+    void bigramAndUnigramMatch() {
+        GameSearchIndex.Segment segment = new GameSearchIndex.Segment();
+        segment.put(id(1), "王者荣耀", TYPE_A);
+        segment.put(id(2), "荣耀战魂", TYPE_A);
+        segment.put(id(3), "Honor of Kings", TYPE_B);
+
+        assertEquals(ids(2, 1), search(segment, "荣耀"));
+        assertEquals(ids(1), search(segment, "王"));
+        assertEquals(ids(1), search(segment, "王者荣耀"));
+        assertEquals(ids(3), search(segment, "  KINGS "));
+        assertEquals(ids(3), search(segment, "r o"));
+        assertTrue(search(segment, "荣誉").isEmpty());
+        assertTrue(search(segment, "").isEmpty());
+    }
+
+    @Test
+    void bigramsMustBeContiguous() {
+        GameSearchIndex.Segment segment = new GameSearchIndex.Segment();
+        // 同时含有"ab"和"bc"但不含"abc"
+        segment.put(id(1), "ab-bc", null);
+        segment.put(id(2), "xabcx", null);
+        assertEquals(ids(2), search(segment, "abc"));
+    }
+
+    @Test
+    void rankExactThenPrefixThenContains() {
+        GameSearchIndex.Segment segment = new GameSearchIndex.Segment();
+        segment.put(id(1), "超级马里奥兄弟", null);
+        segment.put(id(2), "马里奥", null);
+        segment.put(id(3), "马里奥赛车", null);
+        segment.put(id(4), "新马里奥", null);
+        assertEquals(ids(2, 3, 4, 1), search(segment, "马里奥"));
+    }
+
+    @Test
+    void sameResultAsLike() {
+        Random random = new Random(20261018L);
+        String alphabet = "abc游戏王";
+        Map<BigInteger, String> names = new HashMap<>();
+        GameSearchIndex.Segment segment = new GameSearchIndex.Segment();
+        for (long i = 1; i <= 500; i++) {
+            String name = randomText(random, alphabet, 1 + random.nextInt(8));
+            names.put(id(i), name);
+            segment.put(id(i), name, random.nextBoolean() ? TYPE_A : TYPE_B);
+        }
+        // 部分游戏改名或删除后结果仍然一致
+        for (long i = 1; i <= 100; i++) {
+            if (i % 2 == 0) {
+                String name = randomText(random, alphabet, 1 + random.nextInt(8));
+                names.put(id(i), name);
+                segment.put(id(i), name, null);
+            } else {
+                names.remove(id(i));
+                segment.remove(id(i));
+            }
+        }
+
+        for (int n = 0; n < 200; n++) {
+            String keyword = randomText(random, alphabet, 1 + random.nextInt(3));
+            List<BigInteger> expected = new ArrayList<>();
+            for (Map.Entry<BigInteger, String> entry : names.entrySet()) {
+                if (entry.getValue().contains(keyword)) {
+                    expected.add(entry.getKey());
+                }
+            }
+            Collections.sort(expected);
+
+            List<BigInteger> ranked = new ArrayList<>(search(segment, keyword));
+            Collections.sort(ranked);
+            assertEquals(expected, ranked, keyword);
+            assertEquals(expected, pageAll(segment, keyword, 7), keyword);
+        }
+    }
+
+    @Test
+    void typeFilterAndKeywordTypes() {
+        GameSearchIndex.Segment segment = new GameSearchIndex.Segment();
+        segment.put(id(1), "赛车", TYPE_A);
+        segment.put(id(2), "赛车", TYPE_B);
+        segment.put(id(3), "足球", TYPE_A);
+        segment.put(id(4), "篮球", TYPE_B);
+
+        // 类型名称命中的游戏排在名称命中之后
+        assertEquals(ids(1, 2, 3), segment.search("赛车", null, List.of(TYPE_A)));
+        assertEquals(ids(1, 3), segment.search("赛车", TYPE_A, List.of(TYPE_A, TYPE_B)));
+        assertEquals(ids(2, 4), segment.search("赛车", TYPE_B, List.of(TYPE_A, TYPE_B)));
+        assertEquals(ids(1, 2, 3), segment.searchAfter("赛车", null, List.of(TYPE_A), null, 10));
+        assertEquals(ids(2, 3), segment.searchAfter("赛车", null, List.of(TYPE_A), id(1), 10));
+        assertEquals(ids(2), segment.searchAfter("赛车", null, List.of(TYPE_A), id(1), 1));
+    }
+
+    @Test
+    void updateKeepsTypeWhenNotGiven() {
+        GameSearchIndex.Segment segment = new GameSearchIndex.Segment();
+        segment.put(id(1), "旧名称", TYPE_A);
+        assertEquals(ids(1), search(segment, "旧名"));
+
+        segment.put(id(1), "新名称", null);
+        assertTrue(search(segment, "旧名").isEmpty());
+        assertEquals(ids(1), segment.search("新名", TYPE_A, null));
+    }
+
+    @Test
+    void rebuildReplaysWritesMadeDuringScan() {
+        GameSearchIndex index = new GameSearchIndex();
+        GameMapper mapper = mock(GameMapper.class);
+        ReflectionTestUtils.setField(index, "mapper", mapper);
+        ReflectionTestUtils.setField(index, "stringRedisTemplate", mock(StringRedisTemplate.class));
+
+        doAnswer(invocation -> {
+            ResultHandler<Game> handler = invocation.getArgument(0);
+            scan(handler, new Game().setId(id(1)).setGameName("旧名称").setTypeId(TYPE_A));
+            // 扫描过程中本实例写入：游戏1改名、新增游戏3、删除游戏2，从库读到的是写入前的数据
+            index.put(id(1), "新名称", null);
+            index.put(id(3), "新游戏", TYPE_B);
+            index.remove(id(2));
+            scan(handler, new Game().setId(id(2)).setGameName("旧游戏").setTypeId(TYPE_A));
+            return null;
+        }).when(mapper).scanIndexEntries(any());
+
+        index.rebuild();
+
+        assertTrue(index.isReady());
+        assertTrue(index.search("旧", null, null).isEmpty());
+        assertEquals(ids(1, 3), index.search("新", null, null));
+        assertEquals(ids(1), index.getIdsByType(TYPE_A));
+        assertEquals(ids(3), index.getIdsByType(TYPE_B));
+    }
+
+    private static void scan(ResultHandler<Game> handler, Game game) {
+        DefaultResultContext<Game> context = new DefaultResultContext<>();
+        context.nextResultObject(game);
+        handler.handleResult(context);
+    }
+
+    private static List<BigInteger> pageAll(GameSearchIndex.Segment segment, String keyword, int limit) {
+        List<BigInteger> result = new ArrayList<>();
+        BigInteger lastId = null;
+        while (true) {
+            List<BigInteger> page = segment.searchAfter(keyword, null, null, lastId, limit);
+            result.addAll(page);
+            if (page.size() < limit) {
+                return result;
+            }
+            lastId = page.get(page.size() - 1);
+        }
+    }
+
+    private static String randomText(Random random, String alphabet, int length) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.provider.service.game;
+
+import com.example.common.entity.GameTagRelation;
+import com.example.provider.mapper.game.GameTagRelationMapper;
+import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class GameTagIndexTests {
+
+    private static final BigInteger TAG_A = BigInteger.valueOf(1);
+    private static final BigInteger TAG_B = BigInteger.valueOf(2);
+    private static final BigInteger TAG_C = BigInteger.valueOf(3);
+
+    private GameTagIndex index;
+    private GameTagRelationMapper mapper;
+
+    private static BigInteger id(long id) {
+        return BigInteger.valueOf(id);
+    }
+
+    private static List<BigInteger> ids(long... ids) {
+        List<BigInteger> list = new ArrayList<>();
+        for (long id : ids) {
+            list.add(id(id));
+        }
+        return list;
+    }
+
+    private static List<BigInteger> all(RoaringBitmap bitmap) {
+        return GameTagIndex.page(bitmap, 0, bitmap.getCardinality());
+    }
+
+    /**
+     * 游戏1-10都有标签A，偶数游戏有标签B，游戏3、6、9有标签C
+     */
+    @BeforeEach
+    void setUp() {
+        index = new GameTagIndex();
+        mapper = mock(GameTagRelationMapper.class);
+        ReflectionTestUtils.setField(index, "mapper", mapper);
+        ReflectionTestUtils.setField(index, "stringRedisTemplate", mock(StringRedisTemplate.class));
+        List<GameTagRelation> relations = new ArrayList<>();
+        for (long gameId = 1; gameId <= 10; gameId++) {
+            relations.add(new GameTagRelation().setGameId(id(gameId)).setTagId(TAG_A));
+            if (gameId % 2 == 0) {
+                relations.add(new GameTagRelation().setGameId(id(gameId)).setTagId(TAG_B));
+            }
+            if (gameId % 3 == 0) {
+                relations.add(new GameTagRelation().setGameId(id(gameId)).setTagId(TAG_C));
+            }
+        }
+        scanReturns(relations);
+        index.rebuild();
+    }
+
+    private void scanReturns(List<GameTagRelation> relations) {
+        doAnswer(invocation -> {
+            ResultHandler<GameTagRelation> handler = invocation.getArgument(0);
+            for (GameTagRelation relation : relations) {
+                DefaultResultContext<GameTagRelation> context = new DefaultResultContext<>();
+                context.nextResultObject(relation);
+                handler.handleResult(context);
+            }
+            return null;
+        }).when(mapper).scanLiveRelations(any());
+    }
+
+    @Test
+    void anyAndAll() {
+        assertTrue(index.isReady());
+        assertEquals(ids(2, 3, 4, 6, 8, 9, 10), all(index.query(List.of(TAG_B, TAG_C), GameTagIndex.MODE_ANY)));
+        assertEquals(ids(6), all(index.query(List.of(TAG_B, TAG_C), GameTagIndex.MODE_ALL)));
+        assertEquals(ids(6), all(index.query(List.of(TAG_A, TAG_B, TAG_C, TAG_C), GameTagIndex.MODE_ALL)));
+        // 不存在的标签：any忽略，all结果为空
+        assertEquals(ids(3, 6, 9), all(index.query(List.of(TAG_C, id(99)), GameTagIndex.MODE_ANY)));
+        assertTrue(index.query(List.of(TAG_C, id(99)), GameTagIndex.MODE_ALL).isEmpty());
+    }
+
+    @Test
+    void queryResultCanBeModified() {
+        RoaringBitmap result = index.query(List.of(TAG_C), GameTagIndex.MODE_ALL);
+        result.and(GameTagIndex.bitmapOf(ids(3, 4)));
+        assertEquals(ids(3), all(result));
+        assertEquals(ids(3, 6, 9), all(index.query(List.of(TAG_C), GameTagIndex.MODE_ALL)));
+    }
+
+    @Test
+    void pageByOffset() {
+        RoaringBitmap bitmap = index.query(List.of(TAG_A), GameTagIndex.MODE_ANY);
+        assertEquals(ids(1, 2, 3), GameTagIndex.page(bitmap, 0, 3));
+        assertEquals(ids(4, 5, 6), GameTagIndex.page(bitmap, 3, 3));
+        assertEquals(ids(10), GameTagIndex.page(bitmap, 9, 3));
+        assertTrue(GameTagIndex.page(bitmap, 10, 3).isEmpty());
+
+        RoaringBitmap even = index.query(List.of(TAG_B), GameTagIndex.MODE_ALL);
+        assertEquals(ids(6, 8), GameTagIndex.page(even, 2, 2));
+    }
+
+    @Test
+    void pageAfterLastId() {
+        RoaringBitmap bitmap = index.query(List.of(TAG_B), GameTagIndex.MODE_ANY);
+        assertEquals(ids(2, 4), GameTagIndex.pageAfter(bitmap, 0, 2));
+        assertEquals(ids(6, 8), GameTagIndex.pageAfter(bitmap, 4, 2));
+        assertEquals(ids(6, 8), GameTagIndex.pageAfter(bitmap, 5, 2));
+        assertEquals(ids(10), GameTagIndex.pageAfter(bitmap, 8, 2));
+        assertTrue(GameTagIndex.pageAfter(bitmap, 10, 2).isEmpty());
+        assertTrue(GameTagIndex.pageAfter(bitmap, Integer.MAX_VALUE, 2).isEmpty());
+    }
+
+    @Test
+    void writesUpdateIndex() {
+        index.addTags(id(11), List.of(TAG_B, TAG_C));
+        assertEquals(ids(6, 11), all(index.query(List.of(TAG_B, TAG_C), GameTagIndex.MODE_ALL)));
+
+        index.retainTags(id(6), List.of(TAG_A));
+        assertEquals(ids(11), all(index.query(List.of(TAG_B, TAG_C), GameTagIndex.MODE_ALL)));
+
+        index.removeGame(id(11));
+        assertTrue(index.query(List.of(TAG_B, TAG_C), GameTagIndex.MODE_ALL).isEmpty());
+        assertEquals(ids(3, 9), all(index.query(List.of(TAG_C), GameTagIndex.MODE_ANY)));
+    }
+
+    @Test
+    void idBeyondIntDisablesIndex() {
+        BigInteger large = BigInteger.valueOf(Integer.MAX_VALUE).add(BigInteger.ONE);
+        assertFalse(GameTagIndex.fitsInt(large));
+        assertTrue(GameTagIndex.fitsInt(BigInteger.valueOf(Integer.MAX_VALUE)));
+        assertEquals(ids(1), all(GameTagIndex.bitmapOf(List.of(id(1), large))));
+
+        index.addTags(large, List.of(TAG_A));
+        assertFalse(index.isReady());
+        assertEquals(10, index.query(List.of(TAG_A), GameTagIndex.MODE_ANY).getCardinality());
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.provider.service.game;
+
+import com.example.common.entity.Type;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TypeSnapshotTests {
+
+    private static Type type(long id, Long parentId, String name) {
+        return new Type()
+                .setId(BigInteger.valueOf(id))
+                .setParentId(parentId == null ? null : BigInteger.valueOf(parentId))
+                .setTypeName(name);
+    }
+
+    private static List<BigInteger> ids(List<Type> types) {
+        List<BigInteger> ids = new ArrayList<>();
+        for (Type type : types) {
+            ids.add(type.getId());
+        }
+        return ids;
+    }
+
+    private static List<BigInteger> ids(long... ids) {
+        List<BigInteger> list = new ArrayList<>();
+        for (long id : ids) {
+            list.add(BigInteger.valueOf(id));
+        }
+        return list;
+    }
+
+    private final TypeSnapshot snapshot = TypeSnapshot.of(7, List.of(
+            type(5, 1L, "Racing"),
+            type(1, 0L, "动作"),
+            type(3, 1L, "格斗动作"),
+            type(2, null, "体育"),
+            type(4, 2L, "足球"),
+            type(6, 2L, null)));
+
+    @Test
+    void treeIsSortedById() {
+        assertEquals(7, snapshot.getVersion());
+        assertEquals(ids(1, 2, 3, 4, 5, 6), ids(snapshot.getAll()));
+        // parentId为0或null都是根类型
+        assertEquals(ids(1, 2), ids(snapshot.getRoots()));
+        assertEquals(ids(3, 5), ids(snapshot.getChildren(BigInteger.ONE)));
+        assertEquals(ids(4, 6), ids(snapshot.getChildren(BigInteger.TWO)));
+        assertTrue(snapshot.getChildren(BigInteger.TEN).isEmpty());
+    }
+
+    @Test
+    void getById() {
+        assertEquals("足球", snapshot.getById(BigInteger.valueOf(4)).getTypeName());
+        assertNull(snapshot.getById(BigInteger.TEN));
+        assertNull(snapshot.getById(null));
+    }
+
+    @Test
+    void matchNameIgnoresCase() {
+        assertEquals(ids(1, 3), snapshot.matchName("动作"));
+        assertEquals(ids(5), snapshot.matchName("rACING"));
+        assertTrue(snapshot.matchName("不存在").isEmpty());
+        assertTrue(snapshot.matchName("").isEmpty());
+        assertTrue(snapshot.matchName(null).isEmpty());
+    }
+
+    @Test
+    void listsAreReadOnly() {
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getAll().add(type(9, null, "x")));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getRoots().clear());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getChildren(BigInteger.ONE).clear());
+    }
+}